@@ -0,0 +1,120 @@
+package com.example.toxictweet.bench;
+
+import com.example.toxictweet.Tweet;
+import com.example.toxictweet.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic inputs for the benchmarks, so every fork and every run sees the same data.
+ */
+final class BenchmarkData {
+    private static final String[] BASE_WORDS = {
+            "the", "product", "day", "game", "really", "what", "this", "that", "love", "great",
+            "line", "waiting", "movie", "weather", "today", "friends", "believe", "design", "again", "never"
+    };
+    private static final String[] TOXIC_WORDS = {
+            "hate", "stupid", "idiot", "kill", "dumb", "awful", "terrible", "loser", "pathetic", "useless"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds a lexicon of the given size: the real toxic words followed by synthetic terms.
+     */
+    static List<String> lexicon(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> words = new ArrayList<>(size);
+        for (int i = 0; i < size && i < TOXIC_WORDS.length; i++) {
+            words.add(TOXIC_WORDS[i]);
+        }
+        while (words.size() < size) {
+            int length = 4 + random.nextInt(8);
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(sb.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Generates tweet texts of roughly the given length; about a fifth contain a lexicon word.
+     */
+    static List<String> texts(int count, int length, List<String> lexicon, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> texts = new ArrayList<>(count);
+        for (int t = 0; t < count; t++) {
+            StringBuilder sb = new StringBuilder(length + 16);
+            while (sb.length() < length) {
+                if (sb.length() > 0) sb.append(' ');
+                if (random.nextInt(20) == 0) {
+                    sb.append(lexicon.get(random.nextInt(lexicon.size())));
+                } else {
+                    sb.append(BASE_WORDS[random.nextInt(BASE_WORDS.length)]);
+                }
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    /**
+     * Wraps texts into tweets from a pool of users.
+     */
+    static List<Tweet> tweets(List<String> texts, int userCount) {
+        List<Tweet> tweets = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            tweets.add(new Tweet(Integer.toString(i), "user_" + (i % userCount), texts.get(i)));
+        }
+        return tweets;
+    }
+
+    /**
+     * Generates a retweet graph of the given shape over {@code userCount} users.
+     */
+    static Map<String, User> graph(GraphShape shape, int userCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, User> users = new HashMap<>(userCount * 2);
+        for (int i = 0; i < userCount; i++) {
+            users.put("user_" + i, new User("user_" + i));
+        }
+        int[] endpoints = new int[2 * userCount]; // Edge endpoints, for preferential attachment
+        int endpointCount = 0;
+        for (int i = 1; i < userCount; i++) {
+            int source;
+            switch (shape) {
+                case CHAIN: source = i - 1; break;
+                case STAR: source = 0; break;
+                default:
+                    source = endpointCount == 0 || random.nextInt(4) == 0
+                            ? random.nextInt(i)
+                            : endpoints[random.nextInt(endpointCount)];
+            }
+            users.get("user_" + i).addConnection("user_" + source);
+            endpoints[endpointCount++] = source;
+            endpoints[endpointCount++] = i;
+        }
+        return users;
+    }
+
+    /**
+     * Picks toxic tweets from a deterministic sample of users.
+     */
+    static List<Tweet> toxicTweets(int userCount, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Tweet> toxic = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Tweet tweet = new Tweet(Integer.toString(i), "user_" + random.nextInt(userCount), "toxic");
+            tweet.setToxic(true);
+            toxic.add(tweet);
+        }
+        return toxic;
+    }
+}
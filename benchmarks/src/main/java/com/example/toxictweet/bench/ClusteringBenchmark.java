@@ -0,0 +1,67 @@
+package com.example.toxictweet.bench;
+
+import com.example.toxictweet.GraphAnalyzer;
+import com.example.toxictweet.Tweet;
+import com.example.toxictweet.User;
+import com.example.toxictweet.UserGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Toxic cluster detection over generated retweet graphs.
+ * Forked with a large thread stack so the recursive DFS can be measured on long chains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss512m")
+public class ClusteringBenchmark {
+
+    @Param({"10000", "200000"})
+    public int userCount;
+
+    @Param({"CHAIN", "STAR", "POWER_LAW"})
+    public GraphShape graphShape;
+
+    private Map<String, User> users;
+    private UserGraph graph;
+    private List<Tweet> toxicTweets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        users = BenchmarkData.graph(graphShape, userCount, 3);
+        graph = UserGraph.fromUsers(users);
+        toxicTweets = BenchmarkData.toxicTweets(userCount, Math.max(1, userCount / 100), 5);
+    }
+
+    @Benchmark
+    public List<Set<String>> mapDfs() {
+        return new GraphAnalyzer(users, GraphAnalyzer.ClusteringMode.DFS).findToxicClusters(toxicTweets);
+    }
+
+    @Benchmark
+    public List<Set<String>> mapUnionFind() {
+        return new GraphAnalyzer(users, GraphAnalyzer.ClusteringMode.UNION_FIND).findToxicClusters(toxicTweets);
+    }
+
+    @Benchmark
+    public List<Set<String>> graphDfs() {
+        return new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.DFS).findToxicClusters(toxicTweets);
+    }
+
+    @Benchmark
+    public List<Set<String>> graphUnionFind() {
+        return new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.UNION_FIND).findToxicClusters(toxicTweets);
+    }
+
+    @Benchmark
+    public List<Set<String>> graphParallel() {
+        return new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.PARALLEL).findToxicClusters(toxicTweets);
+    }
+}
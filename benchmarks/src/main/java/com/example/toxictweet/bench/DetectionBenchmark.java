@@ -0,0 +1,56 @@
+package com.example.toxictweet.bench;
+
+import com.example.toxictweet.AnalysisPipeline;
+import com.example.toxictweet.ToxicMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Toxic word detection on a single preprocessed tweet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionBenchmark {
+    private static final int TEXT_POOL = 1024;
+
+    @Param({"10", "1000", "50000"})
+    public int lexiconSize;
+
+    @Param({"80", "280"})
+    public int tweetLength;
+
+    @Param({"aho-corasick", "rabin-karp"})
+    public String matcher;
+
+    private ToxicMatcher toxicMatcher;
+    private String[] texts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> lexicon = BenchmarkData.lexicon(lexiconSize, 42);
+        toxicMatcher = ToxicMatcher.create(lexicon, matcher);
+        texts = BenchmarkData.texts(TEXT_POOL, tweetLength, lexicon, 7).stream()
+                .map(AnalysisPipeline::preprocess)
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Set<String> search() {
+        String text = texts[next];
+        next = (next + 1) & (TEXT_POOL - 1);
+        return toxicMatcher.search(text);
+    }
+
+    @Benchmark
+    public ToxicMatcher compile() {
+        return ToxicMatcher.create(BenchmarkData.lexicon(lexiconSize, 42), matcher);
+    }
+}
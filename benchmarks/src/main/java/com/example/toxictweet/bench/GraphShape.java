@@ -0,0 +1,13 @@
+package com.example.toxictweet.bench;
+
+/**
+ * Shapes of the generated retweet graph. Public because JMH generates code that reads it as a parameter.
+ */
+public enum GraphShape {
+    /** One long retweet chain: worst case for recursion depth. */
+    CHAIN,
+    /** Everyone retweets a single hub user. */
+    STAR,
+    /** Preferential attachment: a few heavily retweeted users and a giant component. */
+    POWER_LAW
+}
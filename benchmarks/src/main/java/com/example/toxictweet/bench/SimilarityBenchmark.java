@@ -0,0 +1,46 @@
+package com.example.toxictweet.bench;
+
+import com.example.toxictweet.HashSimilarity;
+import com.example.toxictweet.Tweet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grouping of similar tweets over a whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SimilarityBenchmark {
+
+    @Param({"1000", "5000"})
+    public int corpusSize;
+
+    @Param({"80", "280"})
+    public int tweetLength;
+
+    @Param({"EXACT", "MIN_HASH"})
+    public HashSimilarity.Mode mode;
+
+    private List<String> texts;
+    private HashSimilarity similarity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        texts = BenchmarkData.texts(corpusSize, tweetLength, BenchmarkData.lexicon(100, 42), 11);
+        similarity = new HashSimilarity(70.0, mode);
+    }
+
+    /**
+     * Fresh tweets per invocation, so cached per-tweet fingerprints are part of the measured cost.
+     */
+    @Benchmark
+    public List<List<Tweet>> findSimilarGroups() {
+        return similarity.findSimilarGroups(BenchmarkData.tweets(texts, corpusSize / 4 + 1));
+    }
+}
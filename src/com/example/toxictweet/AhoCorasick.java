@@ -0,0 +1,417 @@
+package com.example.toxictweet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implements the Aho-Corasick algorithm for finding multiple patterns (toxic words) in a text.
+ * The whole lexicon is compiled once into a deterministic automaton, so a search is a single
+ * pass over the text no matter how many patterns there are.
+ * The compiled tables can be written out with {@link #writeTo} and loaded back with {@link #readFrom},
+ * which skips construction entirely.
+ */
+public class AhoCorasick implements ToxicMatcher {
+    private final String[] patterns;
+
+    // Alphabet: every distinct character used by the patterns gets a dense column index.
+    private final int[] asciiIndex;
+    private final char[] otherChars; // Sorted non-ASCII characters
+    private final int asciiCount;
+    private final int alphabetSize;
+
+    // Automaton tables, one row of alphabetSize entries per state.
+    private final int[] transitions;
+    private final int[] matchedPattern; // Pattern ending exactly at a state, or -1
+    private final int[] outputLink;     // Nearest proper suffix state that ends a pattern, or -1
+
+    public AhoCorasick(List<String> patterns) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            if (!pattern.isEmpty()) {
+                unique.add(pattern);
+            }
+        }
+        this.patterns = unique.toArray(new String[0]);
+
+        // --- Build the alphabet ---
+        asciiIndex = new int[128];
+        Arrays.fill(asciiIndex, -1);
+        Set<Character> nonAscii = new HashSet<>();
+        int nextIndex = 0;
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) {
+                    if (asciiIndex[c] < 0) {
+                        asciiIndex[c] = nextIndex++;
+                    }
+                } else {
+                    nonAscii.add(c);
+                }
+            }
+        }
+        otherChars = new char[nonAscii.size()];
+        int k = 0;
+        for (char c : nonAscii) {
+            otherChars[k++] = c;
+        }
+        Arrays.sort(otherChars);
+        asciiCount = nextIndex;
+        alphabetSize = Math.max(1, nextIndex + otherChars.length);
+
+        // --- Count the states: one per distinct prefix, found between neighbours in sorted order ---
+        String[] sorted = this.patterns.clone();
+        Arrays.sort(sorted);
+        int stateCount = 1;
+        for (int p = 0; p < sorted.length; p++) {
+            stateCount += sorted[p].length() - (p > 0 ? commonPrefixLength(sorted[p - 1], sorted[p]) : 0);
+        }
+
+        // --- Build the trie in the transition table, which is allocated once at its final size ---
+        transitions = new int[stateCount * alphabetSize];
+        Arrays.fill(transitions, -1);
+        matchedPattern = new int[stateCount];
+        Arrays.fill(matchedPattern, -1);
+        int nextState = 1;
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = state * alphabetSize + indexOf(pattern.charAt(i));
+                if (transitions[slot] < 0) {
+                    transitions[slot] = nextState++;
+                }
+                state = transitions[slot];
+            }
+            matchedPattern[state] = p;
+        }
+
+        // --- Resolve failure links breadth-first, filling the missing transitions in place ---
+        outputLink = new int[stateCount];
+        int[] failure = new int[stateCount];
+        Arrays.fill(outputLink, -1);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int child = transitions[c];
+            if (child < 0) {
+                transitions[c] = 0;
+            } else {
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = matchedPattern[fail] >= 0 ? fail : outputLink[fail];
+            for (int c = 0; c < alphabetSize; c++) {
+                int slot = state * alphabetSize + c;
+                int child = transitions[slot];
+                if (child < 0) {
+                    transitions[slot] = transitions[fail * alphabetSize + c];
+                } else {
+                    failure[child] = transitions[fail * alphabetSize + c];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private AhoCorasick(String[] patterns, int[] asciiIndex, char[] otherChars, int asciiCount, int alphabetSize,
+                        int[] transitions, int[] matchedPattern, int[] outputLink) {
+        this.patterns = patterns;
+        this.asciiIndex = asciiIndex;
+        this.otherChars = otherChars;
+        this.asciiCount = asciiCount;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.matchedPattern = matchedPattern;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * Writes the compiled automaton.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(patterns.length);
+        for (String pattern : patterns) {
+            out.writeUTF(pattern);
+        }
+        writeInts(out, asciiIndex);
+        out.writeInt(otherChars.length);
+        for (char c : otherChars) {
+            out.writeChar(c);
+        }
+        out.writeInt(asciiCount);
+        out.writeInt(alphabetSize);
+        writeInts(out, transitions);
+        writeInts(out, matchedPattern);
+        writeInts(out, outputLink);
+    }
+
+    /**
+     * Reads an automaton written by {@link #writeTo}. Every count is bounded by the bytes left and every
+     * table is checked against the patterns, so damaged data fails here instead of in a later search.
+     * @param length The number of bytes left in the input, at least the size of the automaton.
+     * @throws IOException If the data is truncated or inconsistent.
+     */
+    public static AhoCorasick readFrom(DataInputStream in, long length) throws IOException {
+        TableInput input = new TableInput(in, length);
+        String[] patterns = new String[input.readCount(2)];
+        for (int p = 0; p < patterns.length; p++) {
+            patterns[p] = input.readUTF();
+        }
+        int[] asciiIndex = input.readInts();
+        char[] otherChars = new char[input.readCount(2)];
+        for (int i = 0; i < otherChars.length; i++) {
+            otherChars[i] = input.readChar();
+        }
+        int asciiCount = input.readInt();
+        int alphabetSize = input.readInt();
+        int[] transitions = input.readInts();
+        int[] matchedPattern = input.readInts();
+        int[] outputLink = input.readInts();
+        if (asciiIndex.length != 128 || asciiCount < 0 || asciiCount > 128
+                || alphabetSize != Math.max(1, asciiCount + otherChars.length)
+                || matchedPattern.length < 1 || matchedPattern.length != outputLink.length
+                || transitions.length != (long) matchedPattern.length * alphabetSize) {
+            throw new IOException("Inconsistent Aho-Corasick tables");
+        }
+        AhoCorasick matcher = new AhoCorasick(patterns, asciiIndex, otherChars, asciiCount, alphabetSize,
+                transitions, matchedPattern, outputLink);
+        matcher.checkTables();
+        return matcher;
+    }
+
+    /**
+     * Checks that read tables form an automaton of the patterns: every index is in range, each pattern
+     * leads from the root to the state that ends it, and no transition goes more than one character
+     * deeper. Output links then only lead to shorter matches, so searches end and report valid spans.
+     */
+    private void checkTables() throws IOException {
+        for (int column : asciiIndex) {
+            if (column < -1 || column >= asciiCount) {
+                throw inconsistent("alphabet column " + column);
+            }
+        }
+        for (int i = 0; i < otherChars.length; i++) {
+            if (otherChars[i] < 128 || i > 0 && otherChars[i] <= otherChars[i - 1]) {
+                throw inconsistent("alphabet character " + (int) otherChars[i]);
+            }
+        }
+        int stateCount = matchedPattern.length;
+        for (int i = 0; i < stateCount; i++) {
+            if (matchedPattern[i] < -1 || matchedPattern[i] >= patterns.length) {
+                throw inconsistent("pattern index " + matchedPattern[i]);
+            }
+            if (outputLink[i] < -1 || outputLink[i] >= stateCount) {
+                throw inconsistent("output link " + outputLink[i]);
+            }
+        }
+        for (int target : transitions) {
+            if (target < 0 || target >= stateCount) {
+                throw inconsistent("state " + target);
+            }
+        }
+
+        // Depth of each trie state, found by walking every pattern from the root
+        int[] depth = new int[stateCount];
+        Arrays.fill(depth, -1);
+        depth[0] = 0;
+        for (int p = 0; p < patterns.length; p++) {
+            String pattern = patterns[p];
+            if (pattern.isEmpty()) {
+                throw inconsistent("empty pattern");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int c = indexOf(pattern.charAt(i));
+                if (c < 0) {
+                    throw inconsistent("pattern character outside the alphabet");
+                }
+                state = transitions[state * alphabetSize + c];
+                if (depth[state] < 0) {
+                    depth[state] = i + 1;
+                } else if (depth[state] != i + 1) {
+                    throw inconsistent("trie path of pattern " + p);
+                }
+            }
+            if (matchedPattern[state] != p) {
+                throw inconsistent("end state of pattern " + p);
+            }
+        }
+        for (int state = 0; state < stateCount; state++) {
+            if (depth[state] < 0) {
+                throw inconsistent("state " + state + " is on no pattern");
+            }
+            if (matchedPattern[state] >= 0 && patterns[matchedPattern[state]].length() != depth[state]) {
+                throw inconsistent("pattern ending at state " + state);
+            }
+            int link = outputLink[state];
+            if (link >= 0 && (matchedPattern[link] < 0 || depth[link] >= depth[state])) {
+                throw inconsistent("output link of state " + state);
+            }
+            for (int c = 0; c < alphabetSize; c++) {
+                if (depth[transitions[state * alphabetSize + c]] > depth[state] + 1) {
+                    throw inconsistent("transition of state " + state);
+                }
+            }
+        }
+    }
+
+    private static IOException inconsistent(String what) {
+        return new IOException("Inconsistent Aho-Corasick tables: " + what);
+    }
+
+    /**
+     * Writes an int array with its length, converting in chunks instead of one call per int.
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        for (int i = 0; i < values.length; ) {
+            int n = Math.min(values.length - i, chunk.capacity() / 4);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, i, n);
+            out.write(chunk.array(), 0, n * 4);
+            i += n;
+        }
+    }
+
+    /**
+     * Reads the serialized tables while counting the bytes left, so no count can claim more than the data holds.
+     */
+    private static final class TableInput {
+        private final DataInputStream in;
+        private long remaining;
+
+        TableInput(DataInputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        int readInt() throws IOException {
+            consume(4);
+            return in.readInt();
+        }
+
+        char readChar() throws IOException {
+            consume(2);
+            return in.readChar();
+        }
+
+        String readUTF() throws IOException {
+            consume(2);
+            String value = in.readUTF();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                consume(c >= 1 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3); // Modified UTF-8
+            }
+            return value;
+        }
+
+        /**
+         * Reads a count and checks that the bytes left can hold that many items of the given size.
+         */
+        int readCount(int itemBytes) throws IOException {
+            int count = readInt();
+            if (count < 0 || (long) count * itemBytes > remaining) {
+                throw new IOException("Inconsistent Aho-Corasick tables: " + count + " items do not fit in the data");
+            }
+            return count;
+        }
+
+        int[] readInts() throws IOException {
+            int length = readCount(4);
+            consume(4L * length);
+            int[] values = new int[length];
+            byte[] chunk = new byte[1 << 16];
+            for (int i = 0; i < length; ) {
+                int n = Math.min(length - i, chunk.length / 4);
+                in.readFully(chunk, 0, n * 4);
+                ByteBuffer.wrap(chunk, 0, n * 4).asIntBuffer().get(values, i, n);
+                i += n;
+            }
+            return values;
+        }
+
+        private void consume(long bytes) throws IOException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new EOFException("Truncated Aho-Corasick tables");
+            }
+        }
+    }
+
+    /**
+     * Searches for all occurrences of the patterns in the given text in a single pass.
+     * @param text The text to search within.
+     * @return A set of toxic words found in the text.
+     */
+    @Override
+    public Set<String> search(String text) {
+        Set<String> foundPatterns = new HashSet<>();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int c = indexOf(text.charAt(i));
+            state = c < 0 ? 0 : transitions[state * alphabetSize + c];
+
+            // Walk the output chain to report every pattern ending here
+            int out = matchedPattern[state] >= 0 ? state : outputLink[state];
+            while (out >= 0) {
+                foundPatterns.add(patterns[matchedPattern[out]]);
+                out = outputLink[out];
+            }
+        }
+        return foundPatterns;
+    }
+
+    /**
+     * Reports every match while scanning the buffer, without copying it.
+     */
+    @Override
+    public void forEachMatch(char[] text, int length, MatchListener listener) {
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            int c = indexOf(text[i]);
+            state = c < 0 ? 0 : transitions[state * alphabetSize + c];
+
+            int out = matchedPattern[state] >= 0 ? state : outputLink[state];
+            while (out >= 0) {
+                String pattern = patterns[matchedPattern[out]];
+                listener.onMatch(pattern, i + 1 - pattern.length(), i + 1);
+                out = outputLink[out];
+            }
+        }
+    }
+
+    /**
+     * Maps a character to its alphabet column, or -1 if no pattern uses it.
+     */
+    private int indexOf(char c) {
+        if (c < 128) {
+            return asciiIndex[c];
+        }
+        int pos = Arrays.binarySearch(otherChars, c);
+        return pos < 0 ? -1 : asciiCount + pos;
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.toxictweet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Headless command-line entry point that runs the full analysis and writes the results as JSON.
+ *
+ * <pre>
+ * java -cp out com.example.toxictweet.AnalysisCli [options] tweets.csv [more.csv ...]
+ *   --lexicon FILE       toxic word list (default: toxic_words.txt)
+ *   --output FILE        JSON output file (default: standard output)
+ *   --matcher NAME       aho-corasick or rabin-karp
+ *   --similarity MODE    exact or min-hash
+ *   --threshold PERCENT  similarity threshold (default: 70)
+ *   --threads N          detection worker threads (default: available processors)
+ *   --detection-cache N  distinct texts whose detection results are cached; 0 disables (default: 65536)
+ *   --columnar           keep tweets in a columnar store instead of one object each, for very large inputs
+ *   --clustering MODE    union-find, parallel or dfs (default: union-find)
+ *   --verify-clusters    cross-check the parallel clusters against union-find and DFS; exit code 3 on a mismatch
+ *   --load-snapshot FILE start from a saved analysis; without input files its stored result is reported as is
+ *   --save-snapshot FILE save the loaded tweets and the analysis for fast reloading
+ *   --stream-window N    also report near-duplicates among the last N tweets as they are read
+ *   --stream-minutes M   limit that window to tweets that arrived in the last M minutes
+ *   --stream-output FILE write each near-duplicate found in the window as one JSON line
+ *   --append FILE        after analyzing the inputs, append this file's tweets line by line and update the
+ *                        analysis incrementally; may be repeated
+ *   --shards N           split the tweets by user across N worker processes and merge their clusters;
+ *                        similar groups are not computed
+ *   --shard-heap SIZE    maximum heap of each worker process, e.g. 4g
+ * </pre>
+ */
+public class AnalysisCli {
+
+    public static void main(String[] args) {
+        String lexicon = "toxic_words.txt";
+        String output = null;
+        String loadSnapshot = null;
+        String saveSnapshot = null;
+        boolean verifyClusters = false;
+        List<String> inputs = new ArrayList<>();
+        List<String> appends = new ArrayList<>();
+        int streamWindow = 0;
+        double streamMinutes = 0;
+        String streamOutput = null;
+        int threads = 0;
+        int shards = 0;
+        String shardHeap = null;
+        AnalysisPipeline pipeline = new AnalysisPipeline();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--lexicon": lexicon = requireValue(args, ++i); break;
+                    case "--output": output = requireValue(args, ++i); break;
+                    case "--matcher": pipeline.setMatcherAlgorithm(requireValue(args, ++i)); break;
+                    case "--similarity":
+                        pipeline.setSimilarityMode(HashSimilarity.Mode.valueOf(
+                                requireValue(args, ++i).trim().toUpperCase().replace('-', '_')));
+                        break;
+                    case "--threshold": pipeline.setSimilarityThreshold(Double.parseDouble(requireValue(args, ++i))); break;
+                    case "--threads": threads = Integer.parseInt(requireValue(args, ++i)); pipeline.setParallelism(threads); break;
+                    case "--detection-cache": pipeline.setDetectionCacheSize(Integer.parseInt(requireValue(args, ++i))); break;
+                    case "--columnar": pipeline.setColumnarStorage(true); break;
+                    case "--clustering": pipeline.setClusteringMode(GraphAnalyzer.ClusteringMode.parse(requireValue(args, ++i))); break;
+                    case "--verify-clusters": verifyClusters = true; break;
+                    case "--load-snapshot": loadSnapshot = requireValue(args, ++i); break;
+                    case "--save-snapshot": saveSnapshot = requireValue(args, ++i); break;
+                    case "--stream-window": streamWindow = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--stream-minutes": streamMinutes = Double.parseDouble(requireValue(args, ++i)); break;
+                    case "--stream-output": streamOutput = requireValue(args, ++i); break;
+                    case "--append": appends.add(requireValue(args, ++i)); break;
+                    case "--shards": shards = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--shard-heap": shardHeap = requireValue(args, ++i); break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        inputs.add(args[i]);
+                }
+            }
+            if (inputs.isEmpty() && loadSnapshot == null) {
+                throw new IllegalArgumentException("No input files given.");
+            }
+            if (streamWindow == 0 && (streamMinutes > 0 || streamOutput != null)) {
+                throw new IllegalArgumentException("--stream-minutes and --stream-output need --stream-window.");
+            }
+            if (shards > 0 && (loadSnapshot != null || saveSnapshot != null || !appends.isEmpty()
+                    || streamWindow > 0 || verifyClusters)) {
+                throw new IllegalArgumentException(
+                        "--shards cannot be combined with snapshots, --append, --stream-window or --verify-clusters.");
+            }
+            if (shards == 0 && shardHeap != null) {
+                throw new IllegalArgumentException("--shard-heap needs --shards.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: AnalysisCli [--lexicon FILE] [--output FILE] [--matcher NAME] "
+                    + "[--similarity MODE] [--threshold PERCENT] [--threads N] [--detection-cache N] [--columnar] [--clustering MODE] [--verify-clusters] "
+                    + "[--load-snapshot FILE] [--save-snapshot FILE] [--stream-window N] [--stream-minutes M] [--stream-output FILE] "
+                    + "[--append FILE]... [--shards N] [--shard-heap SIZE] tweets.csv...");
+            System.exit(2);
+            return;
+        }
+
+        if (shards > 0) {
+            ShardedAnalysis sharded = new ShardedAnalysis(shards);
+            sharded.setLexicon(Paths.get(lexicon));
+            sharded.setMatcherAlgorithm(pipeline.getMatcherAlgorithm());
+            sharded.setClusteringMode(pipeline.getClusteringMode());
+            sharded.setColumnarStorage(pipeline.isColumnarStorage());
+            if (threads > 0) {
+                sharded.setWorkerThreads(threads);
+            }
+            if (shardHeap != null) {
+                sharded.addJvmOption("-Xmx" + shardHeap);
+            }
+            runSharded(sharded, inputs, output);
+            return;
+        }
+
+        Writer streamWriter = null;
+        try {
+            if (streamWindow > 0) {
+                StreamingSimilarity streaming = new StreamingSimilarity(pipeline.getSimilarityThreshold(),
+                        streamWindow, (long) (streamMinutes * 60_000));
+                if (streamOutput != null) {
+                    Writer out = streamWriter = Files.newBufferedWriter(Paths.get(streamOutput), StandardCharsets.UTF_8);
+                    streaming.setListener((tweet, group) -> writeNearDuplicate(out, tweet, group));
+                }
+                pipeline.setStreamingSimilarity(streaming);
+            }
+
+            AnalysisResult result;
+            if (loadSnapshot != null) {
+                result = pipeline.loadSnapshot(new File(loadSnapshot)); // Brings its own lexicon
+            } else {
+                pipeline.loadToxicWords(new File(lexicon));
+                result = null;
+            }
+            for (String input : inputs) {
+                pipeline.parseTweetFile(new File(input));
+            }
+            if (!appends.isEmpty()) {
+                result = pipeline.updateAnalysis();
+                for (String append : appends) {
+                    result = appendTweets(pipeline, Paths.get(append));
+                }
+            } else if (result == null || !inputs.isEmpty()) {
+                result = pipeline.runAnalysis();
+            }
+            if (saveSnapshot != null) {
+                pipeline.saveSnapshot(new File(saveSnapshot), result);
+            }
+
+            Writer writer = output == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+            try {
+                writeJson(pipeline, result, new JsonWriter(writer));
+                writer.write('\n');
+            } finally {
+                if (output == null) {
+                    writer.flush();
+                } else {
+                    writer.close();
+                }
+            }
+
+            System.err.println("Analyzed " + pipeline.getTweets().size() + " tweets: "
+                    + result.getToxicTweets().size() + " toxic, "
+                    + result.getSimilarGroups().size() + " similar groups, "
+                    + result.getToxicClusters().size() + " toxic clusters.");
+            System.err.print(pipeline.getMetrics().format());
+            if (pipeline.getTweets() instanceof ColumnarTweetStore) {
+                ColumnarTweetStore store = (ColumnarTweetStore) pipeline.getTweets();
+                System.err.printf("Columnar store: %d tweets of %d users in %.1f MB.%n",
+                        store.size(), store.userCount(), store.memoryBytes() / 1048576.0);
+            }
+            StreamingSimilarity streaming = pipeline.getStreamingSimilarity();
+            if (streaming != null) {
+                System.err.println("Streaming similarity: " + streaming.getNearDuplicateCount() + " of "
+                        + streaming.getTweetCount() + " tweets arrived with a near-duplicate among the last "
+                        + streaming.getWindowCapacity() + " tweets, " + streaming.getComparisonCount() + " comparisons.");
+            }
+
+            if (verifyClusters) {
+                List<String> problems = pipeline.verifyClusters(result);
+                if (!problems.isEmpty()) {
+                    System.err.println("Cluster cross-check failed:");
+                    problems.forEach(problem -> System.err.println("  " + problem));
+                    System.exit(3);
+                }
+                System.err.println("Cluster cross-check passed: parallel and union-find clusters agree, "
+                        + "DFS clusters lie inside them.");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Analysis failed: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (streamWriter != null) {
+                try {
+                    streamWriter.close();
+                } catch (IOException e) {
+                    System.err.println("Could not write near-duplicates: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one near-duplicate found by the streaming window as a line of JSON.
+     */
+    private static void writeNearDuplicate(Writer out, Tweet tweet, StreamingSimilarity.Group group) {
+        try {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("tweetId").value(tweet.getTweetId());
+            json.name("userId").value(tweet.getUserId());
+            json.name("groupId").value(group.getId());
+            json.name("groupSize").value(group.size());
+            json.name("representative").value(group.getRepresentative().getTweetId());
+            json.endObject();
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the analysis on worker processes and writes the merged results like a single-process run.
+     */
+    private static void runSharded(ShardedAnalysis sharded, List<String> inputs, String output) {
+        try {
+            List<Path> files = new ArrayList<>();
+            for (String input : inputs) {
+                files.add(Paths.get(input));
+            }
+            AnalysisResult result = sharded.run(files);
+
+            Writer writer = output == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+            try {
+                writeJson(sharded.getTweetCount(), sharded.getUserCount(), sharded.getEdgeCount(), null,
+                        result, sharded.getMetrics(), new JsonWriter(writer));
+                writer.write('\n');
+            } finally {
+                if (output == null) {
+                    writer.flush();
+                } else {
+                    writer.close();
+                }
+            }
+
+            System.err.println("Analyzed " + sharded.getTweetCount() + " tweets in " + sharded.getShardCount()
+                    + " shards: " + result.getToxicTweets().size() + " toxic, "
+                    + result.getToxicClusters().size() + " toxic clusters; "
+                    + sharded.getCrossShardRetweets() + " retweets crossed shards through "
+                    + sharded.getBoundaryUserCount() + " users.");
+            System.err.print(sharded.getMetrics().format());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Analysis failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Feeds a file to the pipeline one line at a time and updates the analysis incrementally.
+     */
+    private static AnalysisResult appendTweets(AnalysisPipeline pipeline, Path file) throws IOException {
+        int before = pipeline.getTweets().size();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                pipeline.processTweetLine(line);
+            }
+        }
+        long start = System.nanoTime();
+        AnalysisResult result = pipeline.updateAnalysis();
+        System.err.printf("Appended %d tweets from %s; analysis updated in %.1f ms.%n",
+                pipeline.getTweets().size() - before, file.getFileName(), (System.nanoTime() - start) / 1e6);
+        return result;
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Writes the analysis results as a single JSON document.
+     */
+    static void writeJson(AnalysisPipeline pipeline, AnalysisResult result, JsonWriter json) throws IOException {
+        writeJson(pipeline.getTweets().size(), pipeline.getUserGraph().userCount(), pipeline.getUserGraph().edgeCount(),
+                pipeline.getSimilarityThreshold(), result, pipeline.getMetrics(), json);
+    }
+
+    /**
+     * @param similarityThreshold The threshold of the similar groups, or null if they were not computed.
+     */
+    static void writeJson(long tweetCount, long userCount, long edgeCount, Double similarityThreshold,
+                          AnalysisResult result, PipelineMetrics metrics, JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("tweetCount").value(tweetCount);
+        json.name("userCount").value(userCount);
+        json.name("edgeCount").value(edgeCount);
+
+        json.name("toxicTweets").beginArray();
+        for (Tweet tweet : result.getToxicTweets()) {
+            json.beginObject();
+            json.name("tweetId").value(tweet.getTweetId());
+            json.name("userId").value(tweet.getUserId());
+            json.name("toxicWords").beginArray();
+            for (String word : tweet.getToxicWords()) {
+                json.value(word);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        if (similarityThreshold != null) {
+            json.name("similarityThreshold").value(similarityThreshold);
+        }
+        json.name("similarGroups").beginArray();
+        for (List<Tweet> group : result.getSimilarGroups()) {
+            json.beginArray();
+            for (Tweet tweet : group) {
+                json.value(tweet.getTweetId());
+            }
+            json.endArray();
+        }
+        json.endArray();
+
+        json.name("toxicClusters").beginArray();
+        for (int i = 0; i < result.getToxicClusters().size(); i++) {
+            Set<String> cluster = result.getToxicClusters().get(i);
+            json.beginObject();
+            json.name("sourceUser").value(result.getSourceUser(i));
+            json.name("sourceCandidates").beginArray();
+            for (String candidate : result.getSourceCandidates().get(i)) {
+                json.value(candidate);
+            }
+            json.endArray();
+            json.name("users").beginArray();
+            for (String userId : cluster) {
+                json.value(userId);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("metrics");
+        metrics.writeJson(json);
+        json.endObject();
+        json.flush();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.toxictweet;
+
+/**
+ * Receives progress and partial results while {@link AnalysisPipeline#runAnalysis(AnalysisListener)} runs.
+ * Callbacks are made on the thread running the analysis; UI listeners must hand them over to the UI thread.
+ * Stage names are the {@link PipelineMetrics} stage constants.
+ */
+public interface AnalysisListener {
+    /** A listener that ignores every event. */
+    AnalysisListener NONE = new AnalysisListener() { };
+
+    /**
+     * Called when a stage starts.
+     */
+    default void stageStarted(String stage) {
+    }
+
+    /**
+     * Called periodically while a stage runs.
+     * @param done Work items finished so far.
+     * @param total Work items in the stage.
+     */
+    default void progress(String stage, long done, long total) {
+    }
+
+    /**
+     * Called when a stage finishes, with the results so far; sections of later stages are still null.
+     */
+    default void stageCompleted(String stage, AnalysisResult partial) {
+    }
+}
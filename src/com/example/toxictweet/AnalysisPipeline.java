@@ -0,0 +1,722 @@
+package com.example.toxictweet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * The tweet analysis engine: ingestion, toxic detection, similarity and graph clustering.
+ * It has no UI dependency, so it backs both the JavaFX {@link Main} window and the headless {@link AnalysisCli}.
+ */
+public class AnalysisPipeline {
+    public static final List<String> DEFAULT_TOXIC_WORDS = Arrays.asList("hate", "stupid", "idiot", "kill", "dumb");
+    /** Tweets buffered while streaming a file before they are sent through detection. */
+    static final int STREAM_BATCH_SIZE = 8192;
+    /** Ranked source candidates kept per toxic cluster. */
+    public static final int MAX_SOURCE_CANDIDATES = 10;
+    /** Tweets detected between progress reports and cancellation checks. */
+    static final int DETECTION_CHUNK_SIZE = 65536;
+
+    /** System property choosing how loaded tweets are stored: "objects" (default) or "columnar". */
+    public static final String STORAGE_PROPERTY = "toxic.storage";
+
+    private List<Tweet> tweets = newTweetList("columnar".equals(System.getProperty(STORAGE_PROPERTY, "objects")));
+    private final List<String> toxicWords = new ArrayList<>();
+    private UserGraph.Builder graphBuilder = new UserGraph.Builder(); // User IDs are interned once at ingest
+    private UserGraph userGraph;      // Built from graphBuilder on demand
+    private Map<String, User> users;  // Map view of userGraph for callers that need User objects
+
+    private String matcherAlgorithm = System.getProperty(ToxicMatcher.ALGORITHM_PROPERTY, "aho-corasick");
+    private HashSimilarity.Mode similarityMode = HashSimilarity.Mode.fromSystemProperty();
+    private double similarityThreshold = 70.0;
+    private GraphAnalyzer.ClusteringMode clusteringMode = GraphAnalyzer.ClusteringMode.fromSystemProperty();
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool detectionPool; // Created lazily for parallel detection and clustering
+
+    private ToxicMatcher matcher;  // Compiled lazily from toxicWords
+    private Path matcherCache;     // Disk cache for the compiled matcher of a lexicon file, or null
+    private LexiconManager lexiconManager;      // Source of hot-reloaded lexicons, or null
+    private LexiconManager.Lexicon lexicon;     // The managed lexicon the current matcher came from
+    private DetectionCache detectionCache = new DetectionCache(); // Results of repeated texts, or null when disabled
+    private TweetScanner scanner = new TweetScanner(detectionCache); // Sequential detection; parallel workers keep their own
+    private int detectedCount;     // Tweets [0, detectedCount) already went through detection
+    private IncrementalAnalyzer incremental; // State of updateAnalysis, or null until it first runs
+    private StreamingSimilarity streamingSimilarity; // Sees every tweet as it is added, or null
+
+    private final PipelineMetrics metrics = new PipelineMetrics();
+
+    // Getters
+    /**
+     * @return The loaded tweets; with columnar storage these are views, see {@link ColumnarTweetStore}.
+     */
+    public List<Tweet> getTweets() { return tweets; }
+    public List<String> getToxicWords() { return toxicWords; }
+
+    /**
+     * Returns the per-stage timings and counters recorded since the last {@link #clear()}.
+     */
+    public PipelineMetrics getMetrics() { return metrics; }
+
+    /**
+     * Returns the compact user graph of everything loaded so far.
+     */
+    public UserGraph getUserGraph() {
+        if (userGraph == null) {
+            userGraph = graphBuilder.build();
+        }
+        return userGraph;
+    }
+
+    /**
+     * Returns the user graph as one {@link User} object per user.
+     * This is materialized on demand; large runs should prefer {@link #getUserGraph()}.
+     */
+    public Map<String, User> getUsers() {
+        if (users == null) {
+            users = getUserGraph().toUserMap();
+        }
+        return users;
+    }
+    public double getSimilarityThreshold() { return similarityThreshold; }
+    public String getMatcherAlgorithm() { return matcherAlgorithm; }
+    public GraphAnalyzer.ClusteringMode getClusteringMode() { return clusteringMode; }
+
+    // Setters
+    public void setMatcherAlgorithm(String matcherAlgorithm) {
+        this.matcherAlgorithm = matcherAlgorithm;
+        invalidateDetection();
+    }
+    public void setSimilarityMode(HashSimilarity.Mode similarityMode) { this.similarityMode = similarityMode; }
+    public void setSimilarityThreshold(double thresholdPercent) {
+        if (thresholdPercent != similarityThreshold) {
+            similarityThreshold = thresholdPercent;
+            incremental = null;
+        }
+    }
+    public void setClusteringMode(GraphAnalyzer.ClusteringMode clusteringMode) { this.clusteringMode = clusteringMode; }
+
+    /**
+     * Chooses between one {@link Tweet} object per tweet and a {@link ColumnarTweetStore},
+     * which needs a fraction of the heap for large files at the cost of decoding fields on access.
+     * @throws IllegalStateException If tweets are already loaded.
+     */
+    public void setColumnarStorage(boolean columnar) {
+        if (!tweets.isEmpty()) {
+            throw new IllegalStateException("Storage can only be changed before tweets are loaded");
+        }
+        tweets = newTweetList(columnar);
+    }
+
+    public boolean isColumnarStorage() { return tweets instanceof ColumnarTweetStore; }
+
+    private static List<Tweet> newTweetList(boolean columnar) {
+        return columnar ? new ColumnarTweetStore() : new ArrayList<>();
+    }
+
+    /**
+     * Sets how many distinct normalized texts the detection cache keeps; 0 disables it.
+     */
+    public void setDetectionCacheSize(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + capacity);
+        }
+        detectionCache = capacity == 0 ? null : new DetectionCache(capacity);
+        scanner = new TweetScanner(detectionCache);
+    }
+
+    /**
+     * Sends every tweet added from now on through a sliding-window near-duplicate detector, so
+     * campaigns are reported as they arrive; null stops it. The window is not reset by {@link #clear()}.
+     */
+    public void setStreamingSimilarity(StreamingSimilarity streamingSimilarity) {
+        this.streamingSimilarity = streamingSimilarity;
+    }
+    public StreamingSimilarity getStreamingSimilarity() { return streamingSimilarity; }
+
+    /**
+     * @return The detection cache, or null when it is disabled.
+     */
+    public DetectionCache getDetectionCache() { return detectionCache; }
+
+    /**
+     * Sets how many worker threads the detection stage may use; 1 runs it on the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        if (detectionPool != null && detectionPool.getParallelism() != parallelism) {
+            detectionPool.shutdown();
+            detectionPool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Loads the list of toxic words from a file, one word per line.
+     * The compiled matcher is cached next to the file, see {@link LexiconManager#compile}.
+     */
+    public void loadToxicWords(File file) throws IOException {
+        setToxicWords(LexiconManager.readWords(file.toPath()));
+        matcherCache = LexiconManager.cacheFileFor(file.toPath());
+    }
+
+    /**
+     * Replaces the toxic word list, normalized like tweet text. This detaches any {@link LexiconManager}.
+     */
+    public void setToxicWords(Collection<String> words) {
+        toxicWords.clear();
+        toxicWords.addAll(TextNormalizer.normalizeWords(words));
+        matcherCache = null;
+        lexiconManager = null;
+        lexicon = null;
+        invalidateDetection();
+    }
+
+    /**
+     * Takes the toxic words and compiled matcher from a lexicon manager.
+     * Each detection pass picks up the manager's current lexicon once; when it has changed
+     * since the last pass, all loaded tweets are detected again with the new one.
+     */
+    public void setLexiconManager(LexiconManager manager) {
+        setToxicWords(Collections.emptyList());
+        lexiconManager = manager;
+        refreshLexicon();
+    }
+
+    /**
+     * Switches to the manager's current lexicon if it was swapped since the last detection pass.
+     */
+    private void refreshLexicon() {
+        if (lexiconManager == null) {
+            return;
+        }
+        LexiconManager.Lexicon latest = lexiconManager.current();
+        if (latest != null && latest != lexicon) {
+            lexicon = latest;
+            toxicWords.clear();
+            toxicWords.addAll(latest.getWords());
+            invalidateDetection();
+            matcher = latest.getMatcher();
+        }
+    }
+
+    /**
+     * Drops the compiled matcher so the next detection uses the current settings from scratch.
+     */
+    private void invalidateDetection() {
+        matcher = null;
+        detectedCount = 0;
+        incremental = null;
+        if (detectionCache != null) {
+            detectionCache.clear();
+        }
+    }
+
+    /**
+     * Removes all loaded tweets and users.
+     */
+    public void clear() {
+        tweets.clear();
+        graphBuilder = new UserGraph.Builder();
+        userGraph = null;
+        users = null;
+        detectedCount = 0;
+        incremental = null;
+        metrics.reset();
+    }
+
+    /**
+     * Streams a UTF-8 tweet file through a memory mapping, appending to the tweets already loaded.
+     * Toxic detection runs on each batch of tweets as it is read, so loading and detection overlap
+     * and the ingest timings include the streamed detection batches.
+     */
+    public void parseTweetFile(File file) throws IOException {
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.INGEST)) {
+            long records = MappedTweetReader.read(file.toPath(), (tweetId, userId, text, retweetOf) -> {
+                addTweet(tweetId, userId, text, retweetOf);
+                if (tweets.size() - detectedCount >= STREAM_BATCH_SIZE) {
+                    detectToxicTweets();
+                }
+            });
+            timer.count(PipelineMetrics.ITEMS, records);
+        }
+    }
+
+    /**
+     * Saves the loaded tweets, their detection results, the user graph and a finished analysis.
+     */
+    public void saveSnapshot(File file, AnalysisResult result) throws IOException {
+        AnalysisSnapshot.write(file.toPath(), this, result);
+    }
+
+    /**
+     * Replaces everything loaded with the contents of a snapshot.
+     * Detection is not repeated; tweets added later are detected with the snapshot's lexicon.
+     * @return The analysis result stored in the snapshot.
+     */
+    public AnalysisResult loadSnapshot(File file) throws IOException {
+        AnalysisSnapshot snapshot = AnalysisSnapshot.read(file.toPath());
+        clear();
+        setToxicWords(snapshot.getToxicWords());
+        similarityThreshold = snapshot.getSimilarityThreshold();
+        tweets.addAll(snapshot.getTweets());
+
+        UserGraph graph = snapshot.getUserGraph();
+        for (int u = 0; u < graph.userCount(); u++) {
+            graphBuilder.addUser(graph.userId(u));
+        }
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        for (int u = 0; u < graph.userCount(); u++) {
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                graphBuilder.addEdge(u, targets[k]);
+            }
+        }
+        userGraph = graph;
+        detectedCount = tweets.size();
+        return snapshot.getResult();
+    }
+
+    /**
+     * Processes a single line from the tweet data source.
+     */
+    public void processTweetLine(String line) {
+        TweetLineParser.parse(line, this::addTweet);
+    }
+
+    /**
+     * Adds one tweet and its retweet edge, if any, to the loaded data.
+     * @param retweetOf The user this tweet was retweeted from, or null.
+     */
+    public void addTweet(String tweetId, String userId, String text, String retweetOf) {
+        if (tweets instanceof ColumnarTweetStore) {
+            ColumnarTweetStore store = (ColumnarTweetStore) tweets;
+            int index = store.add(tweetId, userId, text); // No Tweet object unless one is needed
+            if (streamingSimilarity != null) {
+                streamingSimilarity.offer(store.get(index));
+            }
+        } else {
+            Tweet tweet = new Tweet(tweetId, userId, text);
+            tweets.add(tweet);
+            if (streamingSimilarity != null) {
+                streamingSimilarity.offer(tweet);
+            }
+        }
+
+        // Update or create user
+        int user = graphBuilder.addUser(userId);
+
+        // Handle retweets for graph building
+        if (retweetOf != null) {
+            // Add a directed edge from retweeter to source user
+            graphBuilder.addEdge(user, graphBuilder.addUser(retweetOf));
+        }
+        userGraph = null;
+        users = null;
+    }
+
+    /**
+     * Runs the full analysis pipeline on the loaded tweets.
+     */
+    public AnalysisResult runAnalysis() {
+        return runAnalysis(AnalysisListener.NONE);
+    }
+
+    /**
+     * Runs the full analysis pipeline, reporting progress and each stage's results to the listener.
+     * The run can be cancelled by interrupting the calling thread; detection results that were
+     * already published are kept, so the next run resumes from there.
+     * @throws CancellationException If the calling thread was interrupted.
+     */
+    public AnalysisResult runAnalysis(AnalysisListener listener) {
+        // --- Step 1: Preprocessing and Toxic Detection ---
+        listener.stageStarted(PipelineMetrics.DETECTION);
+        detectToxicTweets(listener);
+        List<Tweet> toxicTweets = tweets instanceof ColumnarTweetStore
+                ? ((ColumnarTweetStore) tweets).toxicTweets()
+                : tweets.stream().filter(Tweet::isToxic).collect(Collectors.toList());
+        listener.stageCompleted(PipelineMetrics.DETECTION, new AnalysisResult(toxicTweets, null, null, null));
+
+        // --- Step 2: Similarity Detection ---
+        listener.stageStarted(PipelineMetrics.SIMILARITY);
+        List<List<Tweet>> similarGroups;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.SIMILARITY)) {
+            HashSimilarity similarityDetector = new HashSimilarity(similarityThreshold, similarityMode);
+            similarityDetector.setProgressListener(
+                    (done, total) -> listener.progress(PipelineMetrics.SIMILARITY, done, total));
+            similarGroups = similarityDetector.findSimilarGroups(tweets);
+            timer.count(PipelineMetrics.ITEMS, tweets.size());
+            timer.count(PipelineMetrics.COMPARISONS, similarityDetector.getComparisonCount());
+            timer.count(PipelineMetrics.GROUPS, similarGroups.size());
+        }
+        checkCancelled();
+        listener.stageCompleted(PipelineMetrics.SIMILARITY, new AnalysisResult(toxicTweets, similarGroups, null, null));
+
+        // --- Step 3: User Propagation Graph Analysis ---
+        listener.stageStarted(PipelineMetrics.CLUSTERING);
+        List<Set<String>> toxicClusters;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.CLUSTERING)) {
+            GraphAnalyzer graphAnalyzer = new GraphAnalyzer(getUserGraph(), clusteringMode);
+            if (clusteringMode == GraphAnalyzer.ClusteringMode.PARALLEL) {
+                graphAnalyzer.setPool(getDetectionPool());
+            }
+            toxicClusters = graphAnalyzer.findToxicClusters(toxicTweets);
+            timer.count(PipelineMetrics.ITEMS, toxicTweets.size());
+            timer.count(PipelineMetrics.NODES_VISITED, graphAnalyzer.getNodesVisited());
+            timer.count(PipelineMetrics.EDGES_VISITED, graphAnalyzer.getEdgesVisited());
+            timer.count(PipelineMetrics.CLUSTERS, toxicClusters.size());
+        }
+        checkCancelled();
+        listener.stageCompleted(PipelineMetrics.CLUSTERING, new AnalysisResult(toxicTweets, similarGroups, toxicClusters, null));
+
+        // Heuristic: Rank source users (those with no incoming connections within the cluster first)
+        listener.stageStarted(PipelineMetrics.SOURCES);
+        List<List<String>> sourceCandidates = new ArrayList<>();
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.SOURCES)) {
+            SourceIndex sourceIndex = new SourceIndex(getUserGraph());
+            for (Set<String> cluster : toxicClusters) {
+                sourceCandidates.add(sourceIndex.rankSources(cluster, MAX_SOURCE_CANDIDATES));
+            }
+            timer.count(PipelineMetrics.ITEMS, toxicClusters.size());
+        }
+
+        AnalysisResult result = new AnalysisResult(toxicTweets, similarGroups, toxicClusters, sourceCandidates);
+        listener.stageCompleted(PipelineMetrics.SOURCES, result);
+        return result;
+    }
+
+    /**
+     * Brings the analysis up to date with the tweets appended since the last update, e.g. through
+     * {@link #processTweetLine}, at a cost that follows the number of new tweets and edges rather
+     * than the corpus size; the first update analyzes everything loaded so far.
+     * Groups are found with MinHash/LSH whatever the similarity mode, and clusters are connected
+     * components whatever the clustering mode, see {@link IncrementalAnalyzer}.
+     * A change of lexicon, matcher or threshold makes the next update start over.
+     */
+    public AnalysisResult updateAnalysis() {
+        return updateAnalysis(AnalysisListener.NONE);
+    }
+
+    /**
+     * Updates the analysis, reporting each stage to the listener like {@link #runAnalysis(AnalysisListener)}.
+     * A cancelled update leaves nothing half applied; the next one resumes from there.
+     * @throws CancellationException If the calling thread was interrupted.
+     */
+    public AnalysisResult updateAnalysis(AnalysisListener listener) {
+        listener.stageStarted(PipelineMetrics.DETECTION);
+        detectToxicTweets(listener); // May start over after a lexicon change, which drops the analyzer
+        if (incremental == null) {
+            incremental = new IncrementalAnalyzer(graphBuilder, similarityThreshold);
+        }
+        List<Tweet> toxicTweets = incremental.updateToxicTweets(tweets);
+        listener.stageCompleted(PipelineMetrics.DETECTION, new AnalysisResult(toxicTweets, null, null, null));
+
+        listener.stageStarted(PipelineMetrics.SIMILARITY);
+        List<List<Tweet>> similarGroups;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.SIMILARITY)) {
+            int first = incremental.getTweetCount();
+            long comparisons = incremental.getComparisonCount();
+            try {
+                similarGroups = incremental.updateSimilarGroups(tweets);
+            } finally {
+                timer.count(PipelineMetrics.ITEMS, incremental.getTweetCount() - first);
+                timer.count(PipelineMetrics.COMPARISONS, incremental.getComparisonCount() - comparisons);
+            }
+            timer.count(PipelineMetrics.GROUPS, similarGroups.size());
+        }
+        checkCancelled();
+        listener.stageCompleted(PipelineMetrics.SIMILARITY, new AnalysisResult(toxicTweets, similarGroups, null, null));
+
+        listener.stageStarted(PipelineMetrics.CLUSTERING);
+        List<Set<String>> toxicClusters;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.CLUSTERING)) {
+            int clustered = incremental.getClusteredCount();
+            toxicClusters = incremental.updateClusters();
+            timer.count(PipelineMetrics.ITEMS, incremental.getClusteredCount() - clustered);
+            timer.count(PipelineMetrics.NODES_VISITED, incremental.getNodesVisited());
+            timer.count(PipelineMetrics.EDGES_VISITED, incremental.getEdgesVisited());
+            timer.count(PipelineMetrics.CLUSTERS, toxicClusters.size());
+        }
+        checkCancelled();
+        listener.stageCompleted(PipelineMetrics.CLUSTERING, new AnalysisResult(toxicTweets, similarGroups, toxicClusters, null));
+
+        listener.stageStarted(PipelineMetrics.SOURCES);
+        List<List<String>> sourceCandidates;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.SOURCES)) {
+            sourceCandidates = incremental.sourceCandidates(MAX_SOURCE_CANDIDATES);
+            timer.count(PipelineMetrics.ITEMS, toxicClusters.size());
+        }
+
+        AnalysisResult result = new AnalysisResult(toxicTweets, similarGroups, toxicClusters, sourceCandidates);
+        listener.stageCompleted(PipelineMetrics.SOURCES, result);
+        return result;
+    }
+
+    /**
+     * Flags every tweet that contains at least one toxic word.
+     * Tweets already checked while streaming them in are skipped.
+     * Large batches are split across the detection fork-join pool.
+     */
+    public void detectToxicTweets() {
+        detectToxicTweets(AnalysisListener.NONE);
+    }
+
+    /**
+     * Runs detection in chunks, reporting progress after each and stopping if the thread is interrupted.
+     */
+    private void detectToxicTweets(AnalysisListener listener) {
+        refreshLexicon();
+        int remaining = tweets.size() - detectedCount;
+        if (remaining == 0) {
+            return;
+        }
+        int first = detectedCount;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.DETECTION)) {
+            ToxicMatcher toxicDetector = getMatcher();
+            long matches = 0;
+            long toxic = 0;
+            DetectionCache cache = detectionCache;
+            long hits = cache == null ? 0 : cache.getHits();
+            long misses = cache == null ? 0 : cache.getMisses();
+            long evictions = cache == null ? 0 : cache.getEvictions();
+            try {
+                while (detectedCount < tweets.size()) {
+                    checkCancelled();
+                    int end = Math.min(tweets.size(), detectedCount + DETECTION_CHUNK_SIZE);
+                    if (parallelism > 1 && end - detectedCount >= 2 * ParallelDetector.DEFAULT_BATCH_SIZE) {
+                        ParallelDetector detector = new ParallelDetector(toxicDetector, cache, getDetectionPool());
+                        ParallelDetector.Batch results = detector.detect(tweets, detectedCount, end);
+                        ParallelDetector.publish(tweets, detectedCount, results);
+                        for (Set<String> found : results.wordList()) {
+                            matches += found.size();
+                            toxic += found.isEmpty() ? 0 : 1;
+                        }
+                        detectedCount = end;
+                    } else {
+                        for (; detectedCount < end; detectedCount++) {
+                            int found = detect(tweets.get(detectedCount), toxicDetector);
+                            matches += found;
+                            toxic += found == 0 ? 0 : 1;
+                        }
+                    }
+                    listener.progress(PipelineMetrics.DETECTION, detectedCount - first, remaining);
+                }
+            } finally {
+                timer.count(PipelineMetrics.ITEMS, detectedCount - first);
+                timer.count(PipelineMetrics.MATCHES, matches);
+                timer.count(PipelineMetrics.TOXIC, toxic);
+                if (cache != null) {
+                    timer.count(PipelineMetrics.CACHE_HITS, cache.getHits() - hits);
+                    timer.count(PipelineMetrics.CACHE_MISSES, cache.getMisses() - misses);
+                    timer.count(PipelineMetrics.CACHE_EVICTIONS, cache.getEvictions() - evictions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cross-checks the parallel clusters of a result's toxic tweets against the sequential union-find and DFS,
+     * see {@link ParallelComponents#crossCheck}.
+     * @return A description of each mismatch; empty if the results agree.
+     */
+    public List<String> verifyClusters(AnalysisResult result) {
+        return ParallelComponents.crossCheck(getUserGraph(), result.getToxicTweets(), getDetectionPool());
+    }
+
+    /**
+     * Runs toxic detection over a paged file, reading a few pages at a time so only the tweets being
+     * scanned are in memory; the results go to the paged list's side table. Pages are consumed as the
+     * index publishes them, so this can start while the file is still being indexed.
+     * Similarity and clustering need every tweet in memory and are not run on paged files.
+     * @return The number of toxic tweets.
+     * @throws IOException If the file could not be indexed or read.
+     * @throws CancellationException If the calling thread was interrupted.
+     */
+    public int detectPaged(PagedTweets paged, AnalysisListener listener) throws IOException {
+        refreshLexicon();
+        TweetFileIndex index = paged.getIndex();
+        listener.stageStarted(PipelineMetrics.DETECTION);
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.DETECTION)) {
+            ToxicMatcher toxicDetector = getMatcher();
+            paged.beginDetection(toxicDetector);
+            int pagesPerChunk = Math.max(1, DETECTION_CHUNK_SIZE / TweetFileIndex.PAGE_SIZE);
+            List<Tweet> chunk = new ArrayList<>(DETECTION_CHUNK_SIZE);
+            long items = 0;
+            long matches = 0;
+            int page = 0;
+            try {
+                while (true) {
+                    checkCancelled();
+                    int available = index.awaitRecords((page + pagesPerChunk) * TweetFileIndex.PAGE_SIZE);
+                    int lastPage = Math.min(page + pagesPerChunk, (available + TweetFileIndex.PAGE_SIZE - 1) / TweetFileIndex.PAGE_SIZE);
+                    if (page >= lastPage) {
+                        break;
+                    }
+                    chunk.clear();
+                    for (int p = page; p < lastPage; p++) {
+                        chunk.addAll(paged.readPage(p));
+                    }
+                    if (parallelism > 1 && chunk.size() >= 2 * ParallelDetector.DEFAULT_BATCH_SIZE) {
+                        ParallelDetector detector = new ParallelDetector(toxicDetector, detectionCache, getDetectionPool());
+                        ParallelDetector.publish(chunk, 0, detector.detect(chunk, 0, chunk.size()));
+                    } else {
+                        for (Tweet tweet : chunk) {
+                            detect(tweet, toxicDetector);
+                        }
+                    }
+                    for (int p = page; p < lastPage; p++) {
+                        int from = (p - page) * TweetFileIndex.PAGE_SIZE;
+                        paged.recordDetection(p, chunk.subList(from, Math.min(from + TweetFileIndex.PAGE_SIZE, chunk.size())));
+                    }
+                    for (Tweet tweet : chunk) {
+                        matches += tweet.getToxicWords().size();
+                    }
+                    items += chunk.size();
+                    page = lastPage;
+                    long total = index.isComplete() ? index.recordCount() : Math.max(items, estimateRecords(index));
+                    listener.progress(PipelineMetrics.DETECTION, items, total);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Analysis cancelled");
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                timer.count(PipelineMetrics.ITEMS, items);
+                timer.count(PipelineMetrics.MATCHES, matches);
+                timer.count(PipelineMetrics.TOXIC, paged.toxicCount());
+            }
+            if (index.getFailure() != null) {
+                throw index.getFailure();
+            }
+        }
+        return paged.toxicCount();
+    }
+
+    /**
+     * Extrapolates the record count of a file that is still being indexed from the bytes scanned so far.
+     */
+    private static long estimateRecords(TweetFileIndex index) throws IOException {
+        long bytes = index.bytesIndexed();
+        return bytes == 0 ? 0 : (long) ((double) index.fileSize() / bytes * index.recordCount());
+    }
+
+    /**
+     * @throws CancellationException If the current thread was interrupted.
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Analysis cancelled");
+        }
+    }
+
+    private ForkJoinPool getDetectionPool() {
+        if (detectionPool == null) {
+            detectionPool = new ForkJoinPool(parallelism);
+        }
+        return detectionPool;
+    }
+
+    /**
+     * Runs toxic detection on a single tweet.
+     * @return The number of distinct toxic words found.
+     */
+    private int detect(Tweet tweet, ToxicMatcher toxicDetector) {
+        Set<String> foundToxicWords = scanner.scan(tweet.getOriginalText(), toxicDetector);
+        // Reset as well as set, since a tweet is checked again after the lexicon changes
+        tweet.setToxic(!foundToxicWords.isEmpty());
+        tweet.setToxicWords(foundToxicWords);
+        tweet.setToxicSpans(scanner.spans());
+        return foundToxicWords.size();
+    }
+
+    /**
+     * Returns the matcher for the current lexicon, compiling it on first use.
+     */
+    private ToxicMatcher getMatcher() {
+        if (matcher == null) {
+            matcher = matcherCache == null
+                    ? ToxicMatcher.create(toxicWords, matcherAlgorithm)
+                    : LexiconManager.compile(toxicWords, matcherAlgorithm, matcherCache);
+        }
+        return matcher;
+    }
+
+    /**
+     * Normalizes a tweet's text for matching, see {@link TextNormalizer}.
+     */
+    public static String preprocess(String text) {
+        return TextNormalizer.normalizeToString(text);
+    }
+
+    /**
+     * Formats the analysis results as the human-readable report shown in the UI.
+     */
+    public String formatResults(AnalysisResult result) {
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.REPORT)) {
+            String report = formatReport(result);
+            timer.count("chars", report.length());
+            return report;
+        }
+    }
+
+    private String formatReport(AnalysisResult result) {
+        List<List<Tweet>> similarGroups = result.getSimilarGroups();
+        List<Set<String>> toxicClusters = result.getToxicClusters();
+        StringBuilder sb = new StringBuilder();
+
+        if (result.isComplete()) {
+            sb.append("--- TOXIC TWEET ANALYSIS COMPLETE ---\n\n");
+        } else {
+            sb.append("--- TOXIC TWEET ANALYSIS IN PROGRESS (").append(result.getToxicTweets().size())
+                    .append(" toxic tweets) ---\n\n");
+        }
+
+        // Similar Tweet Groups
+        sb.append("--- Similar/Duplicate Tweet Groups (>=").append(Math.round(similarityThreshold)).append("% Similarity) ---\n");
+        if (similarGroups == null) {
+            sb.append("Pending...\n");
+        } else if (similarGroups.isEmpty()) {
+            sb.append("No similar tweet groups found.\n");
+        } else {
+            for (int i = 0; i < similarGroups.size(); i++) {
+                sb.append("Group ").append(i + 1).append(":\n");
+                for (Tweet tweet : similarGroups.get(i)) {
+                    sb.append("  - [TweetID: ").append(tweet.getTweetId())
+                            .append(", User: ").append(tweet.getUserId()).append("] ")
+                            .append(tweet.getOriginalText()).append("\n");
+                }
+            }
+        }
+        sb.append("\n");
+
+        // Toxic User Clusters
+        sb.append("--- Toxic User Propagation Clusters ---\n");
+        if (toxicClusters == null) {
+            sb.append("Pending...\n");
+        } else if (toxicClusters.isEmpty()) {
+            sb.append("No toxic user clusters found.\n");
+        } else {
+            for (int i = 0; i < toxicClusters.size(); i++) {
+                Set<String> cluster = toxicClusters.get(i);
+                sb.append("Cluster ").append(i + 1).append(":\n");
+                if (result.getSourceCandidates() != null) {
+                    sb.append("  - Source User (Heuristic): ").append(result.getSourceUser(i)).append("\n");
+                    List<String> candidates = result.getSourceCandidates().get(i);
+                    if (candidates.size() > 1) {
+                        sb.append("  - Other Candidates: ").append(String.join(", ", candidates.subList(1, candidates.size()))).append("\n");
+                    }
+                }
+                sb.append("  - Propagating Users: ").append(String.join(", ", cluster)).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
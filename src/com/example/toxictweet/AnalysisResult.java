@@ -0,0 +1,47 @@
+package com.example.toxictweet;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The outcome of one run of the analysis pipeline.
+ * While a run is still in progress, the sections of stages that have not finished are null.
+ */
+public class AnalysisResult {
+    private final List<Tweet> toxicTweets;
+    private final List<List<Tweet>> similarGroups;
+    private final List<Set<String>> toxicClusters;
+    private final List<List<String>> sourceCandidates; // Ranked source candidates per cluster, same order
+
+    public AnalysisResult(List<Tweet> toxicTweets, List<List<Tweet>> similarGroups,
+                          List<Set<String>> toxicClusters, List<List<String>> sourceCandidates) {
+        this.toxicTweets = toxicTweets;
+        this.similarGroups = similarGroups;
+        this.toxicClusters = toxicClusters;
+        this.sourceCandidates = sourceCandidates;
+    }
+
+    // Getters
+    public List<Tweet> getToxicTweets() { return toxicTweets; }
+    public List<List<Tweet>> getSimilarGroups() { return similarGroups; }
+    public List<Set<String>> getToxicClusters() { return toxicClusters; }
+    public List<List<String>> getSourceCandidates() { return sourceCandidates; }
+
+    /**
+     * @return true once every stage has filled in its section.
+     */
+    public boolean isComplete() {
+        return similarGroups != null && toxicClusters != null && sourceCandidates != null;
+    }
+
+    /**
+     * @return The best source candidate of the cluster at the given position.
+     */
+    public String getSourceUser(int cluster) {
+        if (sourceCandidates == null) {
+            return null;
+        }
+        List<String> candidates = sourceCandidates.get(cluster);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+}
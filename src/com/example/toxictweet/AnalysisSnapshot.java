@@ -0,0 +1,447 @@
+package com.example.toxictweet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact binary image of a finished analysis, so a large run can be reopened without
+ * parsing the CSV or running the pipeline again.
+ * <p>
+ * Layout (big-endian): magic, version, similarity threshold, lexicon, the table of distinct found
+ * toxic words, users in dense-index order, the forward CSR edge arrays, then every tweet (id, user
+ * index, text, detection result and highlight spans), the similar groups as tweet indices and the
+ * toxic clusters and their source candidates as user indices. Strings are length-prefixed UTF-8.
+ * Snapshots can be read sequentially through a stream or from a memory mapping. Every count is
+ * checked against the bytes left and every index against its table, so a damaged file is rejected
+ * with an {@link IOException} instead of failing later.
+ */
+public final class AnalysisSnapshot {
+    private static final int MAGIC = 0x5454534E; // "TTSN"
+    /** Bumped whenever the layout changes; older versions are rejected rather than misread. */
+    public static final int VERSION = 1;
+    /** The smallest tweet record: id, user index, text, toxic flag, word count and span count. */
+    private static final int TWEET_MIN_BYTES = 4 + 4 + 4 + 1 + 4 + 4;
+
+    private final double similarityThreshold;
+    private final List<String> toxicWords;
+    private final UserGraph userGraph;
+    private final List<Tweet> tweets;
+    private final AnalysisResult result;
+
+    private AnalysisSnapshot(double similarityThreshold, List<String> toxicWords, UserGraph userGraph,
+                             List<Tweet> tweets, AnalysisResult result) {
+        this.similarityThreshold = similarityThreshold;
+        this.toxicWords = toxicWords;
+        this.userGraph = userGraph;
+        this.tweets = tweets;
+        this.result = result;
+    }
+
+    // Getters
+    public double getSimilarityThreshold() { return similarityThreshold; }
+    public List<String> getToxicWords() { return toxicWords; }
+    public UserGraph getUserGraph() { return userGraph; }
+    public List<Tweet> getTweets() { return tweets; }
+    public AnalysisResult getResult() { return result; }
+
+    /**
+     * Writes the pipeline's tweets, detection results and user graph together with a complete analysis result.
+     */
+    public static void write(Path file, AnalysisPipeline pipeline, AnalysisResult result) throws IOException {
+        if (!result.isComplete()) {
+            throw new IllegalArgumentException("Only a complete analysis can be saved");
+        }
+        List<Tweet> tweets = pipeline.getTweets();
+        UserGraph graph = pipeline.getUserGraph();
+
+        // Distinct found words, so each tweet only stores small indices
+        Map<String, Integer> wordIndex = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            for (String word : tweet.getToxicWords()) {
+                if (!wordIndex.containsKey(word)) {
+                    wordIndex.put(word, words.size());
+                    words.add(word);
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 20))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(pipeline.getSimilarityThreshold());
+            writeStrings(out, pipeline.getToxicWords());
+            writeStrings(out, words);
+
+            out.writeInt(graph.userCount());
+            for (int u = 0; u < graph.userCount(); u++) {
+                writeString(out, graph.userId(u));
+            }
+            writeInts(out, graph.outOffsets());
+            writeInts(out, graph.outTargets());
+
+            Map<Tweet, Integer> tweetIndex = new HashMap<>(tweets.size() * 2);
+            out.writeInt(tweets.size());
+            for (int i = 0; i < tweets.size(); i++) {
+                Tweet tweet = tweets.get(i);
+                tweetIndex.put(tweet, i);
+                writeString(out, tweet.getTweetId());
+                out.writeInt(graph.indexOf(tweet.getUserId()));
+                writeString(out, tweet.getOriginalText());
+                out.writeBoolean(tweet.isToxic());
+                out.writeInt(tweet.getToxicWords().size());
+                for (String word : tweet.getToxicWords()) {
+                    out.writeInt(wordIndex.get(word));
+                }
+                writeInts(out, tweet.getToxicSpans());
+            }
+
+            out.writeInt(result.getSimilarGroups().size());
+            for (List<Tweet> group : result.getSimilarGroups()) {
+                out.writeInt(group.size());
+                for (Tweet tweet : group) {
+                    out.writeInt(tweetIndex.get(tweet));
+                }
+            }
+
+            out.writeInt(result.getToxicClusters().size());
+            for (int c = 0; c < result.getToxicClusters().size(); c++) {
+                writeUsers(out, graph, result.getToxicClusters().get(c));
+                writeUsers(out, graph, result.getSourceCandidates().get(c));
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot from a memory mapping, or sequentially if the file is too large to map in one piece.
+     */
+    public static AnalysisSnapshot read(Path file) throws IOException {
+        if (Files.size(file) > Integer.MAX_VALUE) {
+            return readSequential(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(new BufferInput(buffer));
+        }
+    }
+
+    /**
+     * Reads a snapshot through a buffered stream.
+     */
+    public static AnalysisSnapshot readSequential(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 20)) {
+            return read(new StreamInput(new DataInputStream(in), Files.size(file)));
+        }
+    }
+
+    private static AnalysisSnapshot read(Input in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an analysis snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " (expected " + VERSION + ")");
+        }
+        double threshold = in.readDouble();
+        List<String> toxicWords = readStrings(in);
+        List<String> words = readStrings(in);
+
+        UserGraph.Builder builder = new UserGraph.Builder();
+        int userCount = readCount(in, 4, "users");
+        for (int u = 0; u < userCount; u++) {
+            String userId = in.readString();
+            if (builder.addUser(userId) != u) {
+                throw new IOException("Corrupt snapshot: duplicate user " + userId);
+            }
+        }
+        int[] offsets = readInts(in);
+        int[] targets = readInts(in);
+        if (offsets.length != userCount + 1) {
+            throw new IOException("Corrupt snapshot: edge offsets do not match the user count");
+        }
+        if (offsets[0] != 0 || offsets[userCount] != targets.length) {
+            throw new IOException("Corrupt snapshot: edge offsets do not match the edge count");
+        }
+        for (int u = 0; u < userCount; u++) {
+            if (offsets[u] > offsets[u + 1]) {
+                throw new IOException("Corrupt snapshot: edge offsets are not ascending");
+            }
+        }
+        for (int u = 0; u < userCount; u++) {
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                builder.addEdge(u, checkIndex(targets[k], userCount, "user"));
+            }
+        }
+        UserGraph graph = builder.build();
+
+        int tweetCount = readCount(in, TWEET_MIN_BYTES, "tweets");
+        List<Tweet> tweets = new ArrayList<>(tweetCount);
+        for (int i = 0; i < tweetCount; i++) {
+            String tweetId = in.readString();
+            String userId = graph.userId(checkIndex(in.readInt(), userCount, "user"));
+            Tweet tweet = new Tweet(tweetId, userId, in.readString());
+            tweet.setToxic(in.readBoolean());
+            int found = readCount(in, 4, "toxic words");
+            if (found == 0) {
+                tweet.setToxicWords(Collections.emptySet());
+            } else if (found == 1) {
+                tweet.setToxicWords(Collections.singleton(words.get(checkIndex(in.readInt(), words.size(), "word"))));
+            } else {
+                Set<String> set = new HashSet<>(found * 2);
+                for (int w = 0; w < found; w++) {
+                    set.add(words.get(checkIndex(in.readInt(), words.size(), "word")));
+                }
+                tweet.setToxicWords(set);
+            }
+            int[] spans = readInts(in);
+            checkSpans(spans, tweet.getOriginalText().length());
+            tweet.setToxicSpans(spans.length == 0 ? Tweet.NO_SPANS : spans);
+            tweets.add(tweet);
+        }
+
+        List<Tweet> toxicTweets = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            if (tweet.isToxic()) {
+                toxicTweets.add(tweet);
+            }
+        }
+
+        int groupCount = readCount(in, 4, "similar groups");
+        List<List<Tweet>> similarGroups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            int size = readCount(in, 4, "group members");
+            List<Tweet> group = new ArrayList<>(size);
+            for (int k = 0; k < size; k++) {
+                group.add(tweets.get(checkIndex(in.readInt(), tweetCount, "tweet")));
+            }
+            similarGroups.add(group);
+        }
+
+        int clusterCount = readCount(in, 8, "clusters");
+        List<Set<String>> clusters = new ArrayList<>(clusterCount);
+        List<List<String>> sourceCandidates = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            clusters.add(new LinkedHashSet<>(readUsers(in, graph)));
+            sourceCandidates.add(readUsers(in, graph));
+        }
+
+        AnalysisResult result = new AnalysisResult(toxicTweets, similarGroups, clusters, sourceCandidates);
+        return new AnalysisSnapshot(threshold, toxicWords, graph, tweets, result);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Writes user IDs as dense indices into the snapshot's user table.
+     */
+    private static void writeUsers(DataOutputStream out, UserGraph graph, Iterable<String> userIds) throws IOException {
+        List<Integer> indices = new ArrayList<>();
+        for (String userId : userIds) {
+            int u = graph.indexOf(userId);
+            if (u < 0) {
+                throw new IllegalArgumentException("User is not in the graph: " + userId);
+            }
+            indices.add(u);
+        }
+        out.writeInt(indices.size());
+        for (int u : indices) {
+            out.writeInt(u);
+        }
+    }
+
+    /**
+     * Reads a count and checks that the bytes left can hold that many items of at least the given size.
+     */
+    private static int readCount(Input in, int itemBytes, String what) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || (long) count * itemBytes > in.remaining()) {
+            throw new IOException("Corrupt snapshot: " + count + " " + what + " do not fit in the file");
+        }
+        return count;
+    }
+
+    private static int checkIndex(int index, int size, String what) throws IOException {
+        if (index < 0 || index >= size) {
+            throw new IOException("Corrupt snapshot: " + what + " index " + index + " is not below " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Checks that highlight spans are ascending start and end pairs within the text.
+     */
+    private static void checkSpans(int[] spans, int textLength) throws IOException {
+        if (spans.length % 2 != 0) {
+            throw new IOException("Corrupt snapshot: odd number of highlight span bounds");
+        }
+        for (int k = 0; k < spans.length; k += 2) {
+            if (spans[k] < 0 || spans[k] > spans[k + 1] || spans[k + 1] > textLength) {
+                throw new IOException("Corrupt snapshot: highlight span outside its text");
+            }
+        }
+    }
+
+    private static List<String> readStrings(Input in) throws IOException {
+        int count = readCount(in, 4, "strings");
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readString());
+        }
+        return values;
+    }
+
+    private static int[] readInts(Input in) throws IOException {
+        int[] values = new int[readCount(in, 4, "ints")];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static List<String> readUsers(Input in, UserGraph graph) throws IOException {
+        int count = readCount(in, 4, "users");
+        List<String> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(graph.userId(checkIndex(in.readInt(), graph.userCount(), "user")));
+        }
+        return users;
+    }
+
+    /**
+     * The primitive reads shared by the stream and mapped readers.
+     */
+    private interface Input {
+        int readInt() throws IOException;
+        double readDouble() throws IOException;
+        boolean readBoolean() throws IOException;
+        String readString() throws IOException;
+        /** @return The number of bytes left to read. */
+        long remaining();
+    }
+
+    private static final class StreamInput implements Input {
+        private final DataInputStream in;
+        private long remaining; // Bytes of the file not read yet
+        private byte[] scratch = new byte[256];
+
+        StreamInput(DataInputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        @Override public int readInt() throws IOException { remaining -= 4; return in.readInt(); }
+        @Override public double readDouble() throws IOException { remaining -= 8; return in.readDouble(); }
+        @Override public boolean readBoolean() throws IOException { remaining -= 1; return in.readBoolean(); }
+        @Override public long remaining() { return remaining; }
+
+        @Override
+        public String readString() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > remaining) {
+                throw new EOFException("Truncated snapshot");
+            }
+            remaining -= length;
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.readFully(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class BufferInput implements Input {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public long remaining() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            try {
+                return buffer.getInt();
+            } catch (BufferUnderflowException e) {
+                throw truncated();
+            }
+        }
+
+        @Override
+        public double readDouble() throws IOException {
+            try {
+                return buffer.getDouble();
+            } catch (BufferUnderflowException e) {
+                throw truncated();
+            }
+        }
+
+        @Override
+        public boolean readBoolean() throws IOException {
+            try {
+                return buffer.get() != 0;
+            } catch (BufferUnderflowException e) {
+                throw truncated();
+            }
+        }
+
+        @Override
+        public String readString() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw truncated();
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private static IOException truncated() {
+            return new EOFException("Truncated snapshot");
+        }
+    }
+}
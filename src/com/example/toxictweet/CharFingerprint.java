@@ -0,0 +1,119 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The set of distinct lowercase characters of a text, stored without boxing.
+ * ASCII characters live in a 128-bit bitset; anything else goes into a sorted int array.
+ * Intersections come from word-wise AND plus popcount and a merge of the arrays;
+ * the union size follows from the two set sizes.
+ */
+public final class CharFingerprint {
+    private static final int[] NO_CHARS = new int[0];
+
+    private final long low;    // Characters 0-63
+    private final long high;   // Characters 64-127
+    private final int[] others; // Sorted distinct non-ASCII characters
+    private final int size;
+
+    private CharFingerprint(long low, long high, int[] others) {
+        this.low = low;
+        this.high = high;
+        this.others = others;
+        this.size = Long.bitCount(low) + Long.bitCount(high) + others.length;
+    }
+
+    /**
+     * Builds the fingerprint of a text, lowercasing it one character at a time.
+     */
+    public static CharFingerprint of(CharSequence text) {
+        long low = 0, high = 0;
+        int[] others = NO_CHARS;
+        int otherCount = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c < 64) {
+                low |= 1L << c;
+            } else if (c < 128) {
+                high |= 1L << c;
+            } else {
+                if (otherCount == others.length) {
+                    others = Arrays.copyOf(others, Math.max(4, otherCount * 2));
+                }
+                others[otherCount++] = c;
+            }
+        }
+        return new CharFingerprint(low, high, distinctSorted(others, otherCount));
+    }
+
+    private static int[] distinctSorted(int[] values, int count) {
+        if (count == 0) {
+            return NO_CHARS;
+        }
+        Arrays.sort(values, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, unique);
+    }
+
+    /**
+     * @return The number of distinct characters.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts the characters shared with another fingerprint.
+     */
+    public int intersectionSize(CharFingerprint other) {
+        int shared = Long.bitCount(low & other.low) + Long.bitCount(high & other.high);
+        int[] a = others, b = other.others;
+        int i = 0, j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Calculates the Jaccard similarity between two character sets.
+     * Jaccard Index = |Intersection| / |Union|
+     */
+    public static double jaccard(CharFingerprint a, CharFingerprint b) {
+        int intersection = a.intersectionSize(b);
+        int union = a.size + b.size - intersection;
+        if (union == 0) {
+            return 1.0; // Two empty strings are perfectly similar
+        }
+        return (double) intersection / union;
+    }
+
+    /**
+     * Calls the visitor once for every distinct character.
+     */
+    public void forEachChar(IntConsumer visitor) {
+        for (long bits = low; bits != 0; bits &= bits - 1) {
+            visitor.accept(Long.numberOfTrailingZeros(bits));
+        }
+        for (long bits = high; bits != 0; bits &= bits - 1) {
+            visitor.accept(64 + Long.numberOfTrailingZeros(bits));
+        }
+        for (int c : others) {
+            visitor.accept(c);
+        }
+    }
+}
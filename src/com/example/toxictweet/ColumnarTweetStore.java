@@ -0,0 +1,400 @@
+package com.example.toxictweet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Column-oriented tweet list that keeps tens of millions of tweets in a few primitive arrays
+ * instead of one {@link Tweet} object, three strings and a word set each.
+ * <p>
+ * User IDs are interned into an int column. Tweet IDs and texts are stored as UTF-8 in a shared
+ * arena of large byte chunks. Toxicity is a bitset. Toxic words are interned into word IDs and
+ * kept in a flat int array with per-tweet offsets, and highlight spans likewise.
+ * {@link #get} returns a lightweight {@link Tweet} view that decodes its fields on demand and
+ * writes detection results through to the columns, so the analyzers and the UI work unchanged.
+ * <p>
+ * Detection results can be recorded for any tweet, in any order, and recorded again. A new record
+ * is appended to its column and the old one is left behind until the dead values outweigh the live
+ * ones, when the column is compacted. Not thread-safe; parallel detection publishes its results
+ * from a single thread.
+ */
+public class ColumnarTweetStore extends AbstractList<Tweet> implements RandomAccess {
+    private static final int CHUNK_SIZE = 1 << 24;
+    private static final int MIN_CHUNK_SIZE = 1 << 12;
+
+    // Record columns
+    private UserDictionary users = new UserDictionary();
+    private int[] userColumn = new int[1024];
+    private long[] positions = new long[1024]; // Arena chunk << 32 | offset of each record
+    private int size;
+
+    // Arena: each record is varint id length, varint text length, id bytes, text bytes
+    private byte[][] chunks = new byte[0][];
+    private int chunkFill; // Bytes used in the last chunk
+    private long arenaBytes;
+
+    // Detection columns
+    private final BitSet toxic = new BitSet();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final FlatColumn wordColumn = new FlatColumn();
+    private final FlatColumn spanColumn = new FlatColumn();
+
+    /**
+     * Appends a tweet without creating any object for it.
+     * @return The index of the new tweet.
+     */
+    public int add(String tweetId, String userId, String text) {
+        byte[] id = tweetId.getBytes(StandardCharsets.UTF_8);
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        int length = varintSize(id.length) + varintSize(body.length) + id.length + body.length;
+        if (chunks.length == 0 || chunkFill + length > chunks[chunks.length - 1].length) {
+            newChunk(length);
+        }
+        byte[] chunk = chunks[chunks.length - 1];
+        int offset = chunkFill;
+        int p = writeVarint(chunk, offset, id.length);
+        p = writeVarint(chunk, p, body.length);
+        System.arraycopy(id, 0, chunk, p, id.length);
+        System.arraycopy(body, 0, chunk, p + id.length, body.length);
+        chunkFill = p + id.length + body.length;
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            userColumn = Arrays.copyOf(userColumn, size * 2);
+        }
+        positions[size] = (long) (chunks.length - 1) << 32 | offset;
+        userColumn[size] = users.intern(userId);
+        modCount++;
+        return size++;
+    }
+
+    /**
+     * Appends a copy of a tweet and its detection results.
+     */
+    @Override
+    public boolean add(Tweet tweet) {
+        int i = add(tweet.getTweetId(), tweet.getUserId(), tweet.getOriginalText());
+        setToxic(i, tweet.isToxic());
+        setToxicWords(i, tweet.getToxicWords());
+        setToxicSpans(i, tweet.getToxicSpans());
+        return true;
+    }
+
+    /**
+     * @return A view of the tweet at index i; each call returns a new view.
+     */
+    @Override
+    public Tweet get(int i) {
+        checkIndex(i);
+        return new View(i);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        users = new UserDictionary();
+        chunks = new byte[0][];
+        chunkFill = 0;
+        arenaBytes = 0;
+        toxic.clear();
+        wordIds.clear();
+        words.clear();
+        wordColumn.clear();
+        spanColumn.clear();
+        modCount++;
+    }
+
+    // Column access by index
+    public String getTweetId(int i) {
+        checkIndex(i);
+        byte[] chunk = chunks[(int) (positions[i] >>> 32)];
+        int p = (int) positions[i];
+        int idLength = readVarint(chunk, p);
+        p += varintSize(idLength);
+        p += varintSize(readVarint(chunk, p));
+        return new String(chunk, p, idLength, StandardCharsets.UTF_8);
+    }
+
+    public String getText(int i) {
+        checkIndex(i);
+        byte[] chunk = chunks[(int) (positions[i] >>> 32)];
+        int p = (int) positions[i];
+        int idLength = readVarint(chunk, p);
+        p += varintSize(idLength);
+        int textLength = readVarint(chunk, p);
+        p += varintSize(textLength) + idLength;
+        return new String(chunk, p, textLength, StandardCharsets.UTF_8);
+    }
+
+    public String getUserId(int i) {
+        checkIndex(i);
+        return users.userId(userColumn[i]);
+    }
+
+    /**
+     * @return The interned index of the tweet's user, dense from 0 in order of first appearance.
+     */
+    public int userIndex(int i) {
+        checkIndex(i);
+        return userColumn[i];
+    }
+
+    public boolean isToxic(int i) {
+        checkIndex(i);
+        return toxic.get(i);
+    }
+
+    public Set<String> getToxicWords(int i) {
+        checkIndex(i);
+        int from = wordColumn.start(i);
+        int to = from + wordColumn.length(i);
+        if (from == to) {
+            return Collections.emptySet();
+        }
+        if (to - from == 1) {
+            return Collections.singleton(words.get(wordColumn.values[from]));
+        }
+        Set<String> set = new HashSet<>();
+        for (int k = from; k < to; k++) {
+            set.add(words.get(wordColumn.values[k]));
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    public int[] getToxicSpans(int i) {
+        checkIndex(i);
+        int from = spanColumn.start(i);
+        int to = from + spanColumn.length(i);
+        return from == to ? Tweet.NO_SPANS : Arrays.copyOfRange(spanColumn.values, from, to);
+    }
+
+    public void setToxic(int i, boolean value) {
+        checkIndex(i);
+        toxic.set(i, value);
+    }
+
+    /**
+     * Records the toxic words of tweet i, replacing any recorded before.
+     */
+    public void setToxicWords(int i, Set<String> found) {
+        checkIndex(i);
+        wordColumn.beginRow(i);
+        for (String word : found) {
+            Integer id = wordIds.get(word);
+            if (id == null) {
+                id = words.size();
+                wordIds.put(word, id);
+                words.add(word);
+            }
+            wordColumn.append(id);
+        }
+    }
+
+    /**
+     * Records the highlight spans of tweet i, replacing any recorded before.
+     */
+    public void setToxicSpans(int i, int[] spans) {
+        checkIndex(i);
+        spanColumn.beginRow(i);
+        for (int value : spans) {
+            spanColumn.append(value);
+        }
+    }
+
+    /**
+     * @return Views of the toxic tweets, in order, found from the bitset without visiting the others.
+     */
+    public List<Tweet> toxicTweets() {
+        List<Tweet> result = new ArrayList<>(toxic.cardinality());
+        for (int i = toxic.nextSetBit(0); i >= 0 && i < size; i = toxic.nextSetBit(i + 1)) {
+            result.add(new View(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of distinct users.
+     */
+    public int userCount() {
+        return users.size();
+    }
+
+    /**
+     * @return An estimate of the heap used by the columns and the arena, in bytes.
+     */
+    public long memoryBytes() {
+        return arenaBytes + 12L * positions.length + toxic.size() / 8
+                + wordColumn.memoryBytes() + spanColumn.memoryBytes();
+    }
+
+    private void newChunk(int recordLength) {
+        // Chunks double up to the full size, so a small store stays small
+        int chunkSize = (int) Math.min(CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, arenaBytes));
+        byte[] chunk = new byte[Math.max(chunkSize, recordLength)];
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[chunks.length - 1] = chunk;
+        chunkFill = 0;
+        arenaBytes += chunk.length;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + size);
+        }
+    }
+
+    private static int varintSize(int value) {
+        int bytes = 1;
+        while ((value >>>= 7) != 0) {
+            bytes++;
+        }
+        return bytes;
+    }
+
+    private static int writeVarint(byte[] buffer, int p, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[p++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[p++] = (byte) value;
+        return p;
+    }
+
+    private static int readVarint(byte[] buffer, int p) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer[p++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Variable-length int rows, each a start and a length into an append-only value array.
+     * Rewriting a row appends its new values; the old ones stay until {@link #compact} drops them.
+     * Rows that were never written read as empty.
+     */
+    private static final class FlatColumn {
+        private static final int MIN_COMPACT = 1 << 16; // Dead values tolerated regardless of the live count
+
+        int[] starts = new int[1024]; // Row r is values[starts[r], starts[r] + lengths[r])
+        int[] lengths = new int[1024];
+        int[] values = new int[1024];
+        int fill;     // Values used, live or dead
+        int dead;     // Values no longer referenced by any row
+        int current;  // The row being written, always the last values in the array
+
+        int start(int row) {
+            return row < starts.length ? starts[row] : 0;
+        }
+
+        int length(int row) {
+            return row < lengths.length ? lengths[row] : 0;
+        }
+
+        /**
+         * Starts writing row r, replacing its previous values.
+         */
+        void beginRow(int row) {
+            if (row >= starts.length) {
+                int capacity = Math.max(starts.length * 2, row + 1);
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            dead += lengths[row];
+            lengths[row] = 0;
+            if (dead > MIN_COMPACT && dead > fill - dead) {
+                compact();
+            }
+            starts[row] = fill;
+            current = row;
+        }
+
+        void append(int value) {
+            if (fill == values.length) {
+                values = Arrays.copyOf(values, fill * 2);
+            }
+            values[fill++] = value;
+            lengths[current]++;
+        }
+
+        /**
+         * Copies the live rows to the front of the array in row order.
+         */
+        private void compact() {
+            int[] live = new int[Math.max(1024, fill - dead)];
+            int p = 0;
+            for (int row = 0; row < starts.length; row++) {
+                System.arraycopy(values, starts[row], live, p, lengths[row]);
+                starts[row] = p;
+                p += lengths[row];
+            }
+            values = live;
+            fill = p;
+            dead = 0;
+        }
+
+        void clear() {
+            Arrays.fill(lengths, 0);
+            fill = 0;
+            dead = 0;
+        }
+
+        long memoryBytes() {
+            return 4L * (starts.length + lengths.length + values.length);
+        }
+    }
+
+    /**
+     * A tweet of the store; reads decode the columns and writes go through to them.
+     */
+    private final class View extends Tweet {
+        private final int index;
+
+        View(int index) {
+            this.index = index;
+        }
+
+        @Override public String getTweetId() { return ColumnarTweetStore.this.getTweetId(index); }
+        @Override public String getUserId() { return ColumnarTweetStore.this.getUserId(index); }
+        @Override public String getOriginalText() { return ColumnarTweetStore.this.getText(index); }
+        @Override public boolean isToxic() { return ColumnarTweetStore.this.isToxic(index); }
+        @Override public Set<String> getToxicWords() { return ColumnarTweetStore.this.getToxicWords(index); }
+        @Override public int[] getToxicSpans() { return ColumnarTweetStore.this.getToxicSpans(index); }
+        @Override public void setToxic(boolean value) { ColumnarTweetStore.this.setToxic(index, value); }
+        @Override public void setToxicWords(Set<String> found) { ColumnarTweetStore.this.setToxicWords(index, found); }
+        @Override public void setToxicSpans(int[] spans) { ColumnarTweetStore.this.setToxicSpans(index, spans); }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof View && ((View) o).index == index && ((View) o).store() == ColumnarTweetStore.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private ColumnarTweetStore store() {
+            return ColumnarTweetStore.this;
+        }
+    }
+}
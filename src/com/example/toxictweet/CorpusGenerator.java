@@ -0,0 +1,316 @@
+package com.example.toxictweet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates large synthetic tweet files for load testing, in the {@code tweetId,userId,text[,RT@sourceUser]}
+ * format read by {@link AnalysisPipeline#parseTweetFile(File)}.
+ * <p>
+ * The output depends only on the settings and the seed, so the same corpus can be regenerated anywhere.
+ * Retweet sources are picked by preferential attachment, which gives a power-law degree distribution
+ * and a giant component; a share of the retweets instead extends long retweet chains.
+ * The reported toxic count is the number of tweets the pipeline detects as toxic, which is a little
+ * above the toxic rate, since near-duplicates of toxic tweets usually keep their toxic word.
+ *
+ * <pre>
+ * java -cp out com.example.toxictweet.CorpusGenerator [options]
+ *   --tweets N             number of tweets (default: 1000000)
+ *   --users N              number of users (default: tweets / 10)
+ *   --seed N               random seed (default: 42)
+ *   --lexicon FILE         toxic word list (default: toxic_words.txt)
+ *   --toxic-rate R         share of tweets given a toxic word (default: 0.1)
+ *   --duplicate-rate R     share of tweets that are near-duplicates of a recent tweet (default: 0.05)
+ *   --retweet-rate R       share of tweets that are retweets (default: 0.3)
+ *   --chain-rate R         share of retweets that extend a retweet chain (default: 0.05)
+ *   --chain-length N       length of each retweet chain (default: 1000)
+ *   --output FILE          CSV output file (default: standard output)
+ * </pre>
+ */
+public class CorpusGenerator {
+    private static final String[] VOCABULARY = {
+            "the", "a", "is", "this", "that", "what", "so", "and", "it", "was", "just", "really", "today",
+            "i", "you", "we", "they", "my", "your", "our", "all", "not", "very", "too", "again", "never",
+            "product", "day", "game", "movie", "weather", "line", "design", "team", "music", "food", "city",
+            "morning", "night", "week", "news", "update", "phone", "app", "price", "service", "show", "book",
+            "love", "like", "think", "believe", "agree", "waiting", "watching", "reading", "going", "made",
+            "great", "nice", "good", "new", "best", "worst", "happy", "sad", "late", "early", "fun", "slow",
+            "friends", "people", "everyone", "someone", "nobody", "kindness", "positivity", "weekend",
+            "coffee", "traffic", "train", "launch", "release", "match", "score", "season", "episode"
+    };
+    private static final int RECENT_TEXTS = 4096;    // Ring of recent texts that duplicates are drawn from
+    private static final int MAX_ENDPOINTS = 1 << 22; // Cap on remembered edge endpoints for preferential attachment
+
+    private long tweetCount = 1_000_000;
+    private int userCount; // 0 means tweetCount / 10
+    private long seed = 42;
+    private List<String> toxicWords = new ArrayList<>();
+    private double toxicRate = 0.1;
+    private double duplicateRate = 0.05;
+    private double retweetRate = 0.3;
+    private double chainRate = 0.05;
+    private int chainLength = 1000;
+
+    // Statistics of the last run
+    private long toxicCount;
+    private long duplicateCount;
+    private long retweetCount;
+
+    // Setters
+    public void setTweetCount(long tweetCount) { this.tweetCount = tweetCount; }
+    public void setUserCount(int userCount) { this.userCount = userCount; }
+    public void setSeed(long seed) { this.seed = seed; }
+    public void setToxicWords(List<String> toxicWords) { this.toxicWords = new ArrayList<>(toxicWords); }
+    public void setToxicRate(double toxicRate) { this.toxicRate = rate(toxicRate); }
+    public void setDuplicateRate(double duplicateRate) { this.duplicateRate = rate(duplicateRate); }
+    public void setRetweetRate(double retweetRate) { this.retweetRate = rate(retweetRate); }
+    public void setChainRate(double chainRate) { this.chainRate = rate(chainRate); }
+    public void setChainLength(int chainLength) { this.chainLength = Math.max(1, chainLength); }
+
+    // Getters
+    /** @return The number of tweets of the last run whose text contains a toxic word. */
+    public long getToxicCount() { return toxicCount; }
+    public long getDuplicateCount() { return duplicateCount; }
+    public long getRetweetCount() { return retweetCount; }
+
+    /**
+     * Reads a toxic word list, one word per line.
+     */
+    public void loadToxicWords(File file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    words.add(line.trim().toLowerCase());
+                }
+            }
+        }
+        setToxicWords(words);
+    }
+
+    /**
+     * Writes the corpus, one record per line.
+     * @return The number of tweets written.
+     */
+    public long generate(Writer out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int users = userCount > 0 ? userCount : (int) Math.max(2, Math.min(Integer.MAX_VALUE, tweetCount / 10));
+        ToxicMatcher matcher = toxicWords.isEmpty() ? null : ToxicMatcher.create(TextNormalizer.normalizeWords(toxicWords));
+        TweetScanner scanner = new TweetScanner(null);
+        String[] vocabulary = cleanVocabulary(matcher, scanner);
+        String[] toxic = toxicWords.toArray(new String[0]);
+
+        String[] recent = new String[RECENT_TEXTS];
+        int recentCount = 0;
+        int[] endpoints = new int[Math.min(MAX_ENDPOINTS, (int) Math.min(Integer.MAX_VALUE - 8, 2 * tweetCount + 2))];
+        int endpointCount = 0;
+        int chainTail = -1;  // Last retweeter of the current chain, or -1 if no chain is open
+        int chainLeft = 0;
+        toxicCount = duplicateCount = retweetCount = 0;
+
+        StringBuilder text = new StringBuilder(256);
+        StringBuilder line = new StringBuilder(320);
+        for (long id = 1; id <= tweetCount; id++) {
+            // Text: either a near-duplicate of a recent tweet or fresh words
+            text.setLength(0);
+            boolean isToxic = false;
+            if (recentCount > 0 && random.nextDouble() < duplicateRate) {
+                mutate(recent[random.nextInt(Math.min(recentCount, RECENT_TEXTS))], vocabulary, random, text);
+                duplicateCount++;
+                // The copy keeps the toxic word of a toxic tweet unless the mutation replaced it
+                isToxic = matcher != null && !scanner.scan(text.toString(), matcher).isEmpty();
+            } else {
+                int words = 6 + random.nextInt(20);
+                for (int w = 0; w < words; w++) {
+                    if (w > 0) text.append(' ');
+                    text.append(zipf(vocabulary, random));
+                }
+            }
+            if (toxic.length > 0 && random.nextDouble() < toxicRate) {
+                insertWord(text, toxic[random.nextInt(toxic.length)], random);
+                isToxic = true;
+            }
+            if (isToxic) {
+                toxicCount++;
+            }
+            String tweetText = text.toString();
+            recent[recentCount++ % RECENT_TEXTS] = tweetText;
+
+            // Author and optional retweet source
+            int author = random.nextInt(users);
+            int source = -1;
+            if (random.nextDouble() < retweetRate) {
+                if (chainLeft > 0) {
+                    source = chainTail;
+                    chainLeft--;
+                } else if (random.nextDouble() < chainRate) {
+                    source = author;
+                    author = random.nextInt(users);
+                    chainLeft = chainLength - 1;
+                } else if (endpointCount == 0 || random.nextInt(4) == 0) {
+                    source = random.nextInt(users);
+                } else {
+                    source = endpoints[random.nextInt(endpointCount)]; // Preferential attachment
+                }
+                if (source == author) {
+                    author = (author + 1) % users;
+                }
+                chainTail = chainLeft > 0 ? author : -1;
+                endpointCount = remember(endpoints, endpointCount, source, random);
+                endpointCount = remember(endpoints, endpointCount, author, random);
+                retweetCount++;
+            }
+
+            line.setLength(0);
+            line.append(id).append(",user_").append(author).append(',').append(tweetText);
+            if (source >= 0) {
+                line.append(",RT@user_").append(source);
+            }
+            line.append('\n');
+            out.append(line);
+        }
+        out.flush();
+        return tweetCount;
+    }
+
+    /**
+     * The vocabulary without words that would themselves match a toxic word, so fresh text is only
+     * toxic where a toxic word is inserted.
+     */
+    private static String[] cleanVocabulary(ToxicMatcher matcher, TweetScanner scanner) {
+        if (matcher == null) {
+            return VOCABULARY;
+        }
+        return Arrays.stream(VOCABULARY)
+                .filter(word -> scanner.scan(word, matcher).isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Copies a text, replacing or appending one word so its character set barely changes.
+     */
+    private static void mutate(String original, String[] vocabulary, SplittableRandom random, StringBuilder out) {
+        out.append(original);
+        String word = zipf(vocabulary, random);
+        int space = original.lastIndexOf(' ');
+        if (space > 0 && random.nextBoolean()) {
+            out.setLength(space + 1);
+            out.append(word);
+        } else {
+            out.append(' ').append(word);
+        }
+    }
+
+    /**
+     * Inserts a word at a random word boundary.
+     */
+    private static void insertWord(StringBuilder text, String word, SplittableRandom random) {
+        int at = random.nextInt(text.length() + 1);
+        while (at > 0 && at < text.length() && text.charAt(at - 1) != ' ') {
+            at--;
+        }
+        if (at == 0) {
+            text.insert(0, word + ' ');
+        } else if (at == text.length()) {
+            text.append(' ').append(word);
+        } else {
+            text.insert(at, word + ' ');
+        }
+    }
+
+    /**
+     * Picks a word with a skewed distribution, so common words dominate as in real text.
+     */
+    private static String zipf(String[] vocabulary, SplittableRandom random) {
+        return vocabulary[random.nextInt(random.nextInt(vocabulary.length) + 1)];
+    }
+
+    /**
+     * Remembers an edge endpoint; once the buffer is full a random slot is overwritten.
+     */
+    private static int remember(int[] endpoints, int count, int user, SplittableRandom random) {
+        if (count < endpoints.length) {
+            endpoints[count] = user;
+            return count + 1;
+        }
+        endpoints[random.nextInt(count)] = user;
+        return count;
+    }
+
+    private static double rate(double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Rate must be between 0 and 1: " + value);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) {
+        CorpusGenerator generator = new CorpusGenerator();
+        String lexicon = "toxic_words.txt";
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--tweets": generator.setTweetCount(Long.parseLong(requireValue(args, ++i))); break;
+                    case "--users": generator.setUserCount(Integer.parseInt(requireValue(args, ++i))); break;
+                    case "--seed": generator.setSeed(Long.parseLong(requireValue(args, ++i))); break;
+                    case "--lexicon": lexicon = requireValue(args, ++i); break;
+                    case "--toxic-rate": generator.setToxicRate(Double.parseDouble(requireValue(args, ++i))); break;
+                    case "--duplicate-rate": generator.setDuplicateRate(Double.parseDouble(requireValue(args, ++i))); break;
+                    case "--retweet-rate": generator.setRetweetRate(Double.parseDouble(requireValue(args, ++i))); break;
+                    case "--chain-rate": generator.setChainRate(Double.parseDouble(requireValue(args, ++i))); break;
+                    case "--chain-length": generator.setChainLength(Integer.parseInt(requireValue(args, ++i))); break;
+                    case "--output": output = requireValue(args, ++i); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: CorpusGenerator [--tweets N] [--users N] [--seed N] [--lexicon FILE] "
+                    + "[--toxic-rate R] [--duplicate-rate R] [--retweet-rate R] [--chain-rate R] "
+                    + "[--chain-length N] [--output FILE]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            generator.loadToxicWords(new File(lexicon));
+            Writer writer = output == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+            long written;
+            try {
+                written = generator.generate(writer);
+            } finally {
+                if (output != null) {
+                    writer.close();
+                }
+            }
+            System.err.println("Tweets: " + written + ", toxic: " + generator.getToxicCount()
+                    + ", near-duplicates: " + generator.getDuplicateCount()
+                    + ", retweets: " + generator.getRetweetCount());
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
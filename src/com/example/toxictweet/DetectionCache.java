@@ -0,0 +1,179 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of detection results keyed by tweet text, so retweets and copy-paste reposts
+ * skip normalization, matching and span mapping.
+ * <p>
+ * Keys are the original texts: their hash is cached by {@link String} and comparing them is cheap,
+ * while hashing the normalized text costs about as much as the Aho-Corasick scan it would save.
+ * Cached word sets and span arrays are immutable and shared by every tweet with the same text.
+ * The cache is split into segments, each an LRU map behind its own lock, so parallel detection
+ * workers rarely contend. Memory stays bounded: each segment evicts its least recently used entry
+ * when full, and texts longer than {@link #MAX_TEXT_LENGTH} are not cached.
+ * <p>
+ * Most tweets are never repeated, so a text is only admitted the second time it is seen. A
+ * direct-mapped table of recent text hashes remembers first sightings; one-off texts then cost a
+ * hash probe instead of an insertion that would evict a useful entry.
+ */
+public class DetectionCache {
+    /** Entries kept by default. */
+    public static final int DEFAULT_CAPACITY = 65536;
+    /** Longer texts are rarely repeated and are not cached. */
+    public static final int MAX_TEXT_LENGTH = 1024;
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int[] seen; // Hashes of texts seen once; races only lose or repeat an admission
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The detection result of one text.
+     */
+    static final class Entry {
+        private final Set<String> words;
+        private final int[] spans;
+
+        Entry(Set<String> words, int[] spans) {
+            this.words = words;
+            this.spans = spans;
+        }
+
+        Set<String> words() { return words; }
+        int[] spans() { return spans; }
+    }
+
+    /**
+     * One LRU map; evicts its eldest entry once it holds more than its share of the capacity.
+     */
+    private final class Segment extends LinkedHashMap<String, DetectionCache.Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int limit;
+
+        Segment(int limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DetectionCache.Entry> eldest) {
+            if (size() > limit) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public DetectionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DetectionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.seen = new int[Integer.highestOneBit(capacity - 1 | 1) << 2];
+        int limit = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(limit);
+        }
+    }
+
+    /**
+     * Looks up the result for a text and counts the hit or miss.
+     * @return The cached entry, or null.
+     */
+    Entry get(String text) {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            misses.increment();
+            return null;
+        }
+        Segment segment = segmentFor(text);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(text);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Checks whether a text that missed should be stored: true on its second sighting.
+     */
+    boolean admit(String text) {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            return false;
+        }
+        int h = text.hashCode();
+        int slot = (h ^ (h >>> 16)) & (seen.length - 1);
+        if (seen[slot] == h) {
+            return true;
+        }
+        seen[slot] = h;
+        return false;
+    }
+
+    /**
+     * Stores the result for a text.
+     * @param words An unmodifiable set of the toxic words found.
+     * @param spans The highlight spans, which must not be modified afterwards.
+     */
+    void put(String text, Set<String> words, int[] spans) {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            return;
+        }
+        Segment segment = segmentFor(text);
+        synchronized (segment) {
+            segment.put(text, new Entry(words, spans));
+        }
+    }
+
+    /**
+     * Drops all entries, e.g. because the lexicon changed. The statistics are kept.
+     */
+    public void clear() {
+        Arrays.fill(seen, 0);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(String text) {
+        // Top bits of a multiplicative hash, independent of the low bits used for the admission slot
+        return segments[(text.hashCode() * 0x9E3779B9) >>> (32 - SEGMENT_BITS)];
+    }
+
+    // Getters
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+}
@@ -1,33 +1,125 @@
 package com.example.toxictweet;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Builds and analyzes the user propagation graph to find toxic clusters.
  */
 public class GraphAnalyzer {
-    private final Map<String, User> users; // Adjacency list representation
+
+    /**
+     * How clusters are computed.
+     * DFS follows retweet edges recursively from each toxic user, in direction only.
+     * UNION_FIND merges users along edges in either direction and returns whole connected components.
+     * It runs in near-linear time with a constant stack depth.
+     * PARALLEL returns the same components as UNION_FIND, computed across cores by {@link ParallelComponents}.
+     */
+    public enum ClusteringMode {
+        DFS, UNION_FIND, PARALLEL;
+
+        /**
+         * Parses "dfs", "union-find" or "parallel".
+         */
+        public static ClusteringMode parse(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+
+        /**
+         * Reads the mode from the {@value GraphAnalyzer#MODE_PROPERTY} system property, defaulting to union-find.
+         */
+        public static ClusteringMode fromSystemProperty() {
+            return parse(System.getProperty(MODE_PROPERTY, "union-find"));
+        }
+    }
+
+    public static final String MODE_PROPERTY = "toxic.clustering";
+
+    private final Map<String, User> users; // Adjacency list representation, null when built from a UserGraph
+    private UserGraph graph;               // Compact representation, built from users on first use
+    private final ClusteringMode mode;
+    private ForkJoinPool pool = ForkJoinPool.commonPool(); // Used by the parallel mode
+    private long nodesVisited; // Work done by the last findToxicClusters call
+    private long edgesVisited;
 
     public GraphAnalyzer(Map<String, User> users) {
+        this(users, ClusteringMode.DFS);
+    }
+
+    public GraphAnalyzer(Map<String, User> users, ClusteringMode mode) {
         this.users = users;
+        this.mode = mode;
+    }
+
+    /**
+     * Runs the analysis directly against the compact CSR graph.
+     */
+    public GraphAnalyzer(UserGraph graph, ClusteringMode mode) {
+        this.users = null;
+        this.graph = graph;
+        this.mode = mode;
+    }
+
+    private UserGraph getGraph() {
+        if (graph == null) {
+            graph = UserGraph.fromUsers(users);
+        }
+        return graph;
+    }
+
+    /**
+     * Sets the pool the parallel mode runs on; the common pool by default.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return The number of users visited by the last {@link #findToxicClusters} call.
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * @return The number of edges followed by the last {@link #findToxicClusters} call.
+     */
+    public long getEdgesVisited() {
+        return edgesVisited;
     }
 
     /**
-     * Finds clusters of users involved in spreading toxic tweets using DFS.
+     * Finds clusters of users involved in spreading toxic tweets.
      * A cluster is a connected component in the user graph.
      * @param toxicTweets A list of tweets identified as toxic.
      * @return A list of sets, where each set contains the user IDs of a cluster.
      */
     public List<Set<String>> findToxicClusters(List<Tweet> toxicTweets) {
-        List<Set<String>> clusters = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
+        nodesVisited = 0;
+        edgesVisited = 0;
         // Get the set of users who posted toxic tweets
         Set<String> toxicUsers = new HashSet<>();
         for (Tweet tweet : toxicTweets) {
             toxicUsers.add(tweet.getUserId());
         }
 
+        if (mode == ClusteringMode.UNION_FIND) {
+            return findClustersUnionFind(toxicUsers);
+        }
+        if (mode == ClusteringMode.PARALLEL) {
+            UserGraph g = getGraph();
+            int[] labels = ParallelComponents.compute(g, pool);
+            nodesVisited += g.userCount();
+            edgesVisited += g.edgeCount();
+            return clustersOfComponents(g, toxicUsers, u -> labels[u]);
+        }
+        if (users == null) {
+            return findClustersDirected(toxicUsers);
+        }
+
+        List<Set<String>> clusters = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
         for (String userId : toxicUsers) {
             if (!visited.contains(userId)) {
                 Set<String> currentCluster = new HashSet<>();
@@ -41,15 +133,142 @@ public class GraphAnalyzer {
         return clusters;
     }
 
+    /**
+     * Labels every user of the graph with its connected component, on the pool in the parallel mode
+     * and with a sequential union-find otherwise.
+     * @return For each user index, a user index that is the same for all users of its component.
+     */
+    public int[] componentLabels() {
+        UserGraph g = getGraph();
+        nodesVisited = g.userCount();
+        edgesVisited = g.edgeCount();
+        if (mode == ClusteringMode.PARALLEL) {
+            return ParallelComponents.compute(g, pool);
+        }
+        int n = g.userCount();
+        int[] offsets = g.outOffsets();
+        int[] targets = g.outTargets();
+        UnionFind components = new UnionFind(n);
+        for (int u = 0; u < n; u++) {
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                components.union(u, targets[k]);
+            }
+        }
+        int[] labels = new int[n];
+        for (int u = 0; u < n; u++) {
+            labels[u] = components.find(u);
+        }
+        return labels;
+    }
+
+    /**
+     * Finds the connected components that contain toxic users with a union-find over the CSR edges.
+     * Clusters are returned in the order their first toxic user is met.
+     */
+    private List<Set<String>> findClustersUnionFind(Set<String> toxicUsers) {
+        UserGraph g = getGraph();
+        int n = g.userCount();
+        int[] offsets = g.outOffsets();
+        int[] targets = g.outTargets();
+
+        UnionFind components = new UnionFind(n);
+        for (int u = 0; u < n; u++) {
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                components.union(u, targets[k]);
+            }
+        }
+        nodesVisited += n;
+        edgesVisited += targets.length;
+        return clustersOfComponents(g, toxicUsers, components::find);
+    }
+
+    /**
+     * Collects one cluster per component that holds a toxic user, in the order their first toxic user is met.
+     * @param rootOf Maps a user index to the representative of its component.
+     */
+    private static List<Set<String>> clustersOfComponents(UserGraph g, Set<String> toxicUsers, IntUnaryOperator rootOf) {
+        int n = g.userCount();
+        List<Set<String>> clusters = new ArrayList<>();
+        int[] clusterOfRoot = new int[n];
+        Arrays.fill(clusterOfRoot, -1);
+        for (String userId : toxicUsers) {
+            int u = g.indexOf(userId);
+            if (u < 0) {
+                clusters.add(new HashSet<>(Collections.singleton(userId))); // Not in the graph
+                continue;
+            }
+            int root = rootOf.applyAsInt(u);
+            if (clusterOfRoot[root] < 0) {
+                clusterOfRoot[root] = clusters.size();
+                clusters.add(new HashSet<>());
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            int cluster = clusterOfRoot[rootOf.applyAsInt(u)];
+            if (cluster >= 0) {
+                clusters.get(cluster).add(g.userId(u));
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * The DFS mode over the CSR graph: the same directed reachability as {@link #dfs},
+     * with an explicit stack and a visited bitmap instead of recursion and string sets.
+     */
+    private List<Set<String>> findClustersDirected(Set<String> toxicUsers) {
+        UserGraph g = getGraph();
+        int[] offsets = g.outOffsets();
+        int[] targets = g.outTargets();
+        boolean[] visited = new boolean[g.userCount()];
+        int[] stack = new int[16];
+
+        List<Set<String>> clusters = new ArrayList<>();
+        for (String userId : toxicUsers) {
+            int start = g.indexOf(userId);
+            if (start < 0) {
+                clusters.add(new HashSet<>(Collections.singleton(userId))); // Not in the graph
+                continue;
+            }
+            if (visited[start]) {
+                continue;
+            }
+            Set<String> currentCluster = new HashSet<>();
+            int top = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (top > 0) {
+                int u = stack[--top];
+                currentCluster.add(g.userId(u));
+                nodesVisited++;
+                edgesVisited += offsets[u + 1] - offsets[u];
+                for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                    int v = targets[k];
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = v;
+                    }
+                }
+            }
+            clusters.add(currentCluster);
+        }
+        return clusters;
+    }
+
     /**
      * Depth-First Search to find all users in a connected component.
      */
     private void dfs(String userId, Set<String> visited, Set<String> currentCluster) {
         visited.add(userId);
         currentCluster.add(userId);
+        nodesVisited++;
 
         User user = users.get(userId);
         if (user != null && user.getConnections() != null) {
+            edgesVisited += user.getConnections().size();
             for (String neighborId : user.getConnections()) {
                 if (!visited.contains(neighborId) && users.containsKey(neighborId)) {
                     dfs(neighborId, visited, currentCluster);
@@ -61,6 +280,8 @@ public class GraphAnalyzer {
     /**
      * A heuristic to find a potential source user within a cluster.
      * It looks for a user who has no incoming connections from others within the same cluster.
+     * Users missing from the map are treated as having no connections.
+     * For repeated queries, build a {@link SourceIndex} once instead; it is linear per cluster.
      * @param cluster The set of user IDs in the cluster.
      * @param allUsers The map of all users and their connections.
      * @return The ID of a potential source user, or the first user if none is found.
@@ -69,7 +290,8 @@ public class GraphAnalyzer {
         for (String potentialSource : cluster) {
             boolean isPointedToByClusterMember = false;
             for (String otherUser : cluster) {
-                if (!potentialSource.equals(otherUser) && allUsers.get(otherUser).getConnections().contains(potentialSource)) {
+                User other = allUsers.get(otherUser);
+                if (!potentialSource.equals(otherUser) && other != null && other.getConnections().contains(potentialSource)) {
                     isPointedToByClusterMember = true;
                     break;
                 }
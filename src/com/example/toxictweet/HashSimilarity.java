@@ -1,59 +1,98 @@
 package com.example.toxictweet;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
 
 /**
  * Detects similar tweets using string hashing (Jaccard similarity of character sets).
  */
 public class HashSimilarity {
 
-    private final double similarityThreshold;
+    /**
+     * How candidate pairs are generated.
+     * EXACT compares every pair; MIN_HASH only compares pairs that share an LSH bucket.
+     */
+    public enum Mode {
+        EXACT, MIN_HASH;
 
-    public HashSimilarity(double thresholdPercent) {
-        this.similarityThreshold = thresholdPercent / 100.0;
+        /**
+         * Reads the mode from the {@value HashSimilarity#MODE_PROPERTY} system property ("exact" or "min-hash").
+         */
+        public static Mode fromSystemProperty() {
+            String value = System.getProperty(MODE_PROPERTY, "exact");
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
     }
 
+    public static final String MODE_PROPERTY = "toxic.similarity";
+
     /**
-     * Calculates the Jaccard similarity between two strings.
-     * Jaccard Index = |Intersection| / |Union|
+     * Receives the number of tweets whose group has been settled so far.
      */
-    private double calculateSimilarity(String s1, String s2) {
-        Set<Character> set1 = new HashSet<>();
-        for (char c : s1.toCharArray()) {
-            set1.add(c);
-        }
+    public interface ProgressListener {
+        void progress(long done, long total);
+    }
 
-        Set<Character> set2 = new HashSet<>();
-        for (char c : s2.toCharArray()) {
-            set2.add(c);
-        }
+    /** Tweets processed between progress reports and cancellation checks. */
+    private static final int PROGRESS_INTERVAL = 256;
 
-        Set<Character> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
+    private final double similarityThreshold;
+    private final Mode mode;
+    private long comparisons; // Similarity computations in the last findSimilarGroups call
+    private ProgressListener progressListener;
 
-        Set<Character> union = new HashSet<>(set1);
-        union.addAll(set2);
+    public HashSimilarity(double thresholdPercent) {
+        this(thresholdPercent, Mode.EXACT);
+    }
 
-        if (union.isEmpty()) {
-            return 1.0; // Two empty strings are perfectly similar
-        }
+    public HashSimilarity(double thresholdPercent, Mode mode) {
+        this.similarityThreshold = thresholdPercent / 100.0;
+        this.mode = mode;
+    }
 
-        return (double) intersection.size() / union.size();
+    /**
+     * Sets a listener for progress reports while groups are found.
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @return The number of pairs compared by the last {@link #findSimilarGroups} call.
+     */
+    public long getComparisonCount() {
+        return comparisons;
+    }
+
+    /**
+     * Calculates the Jaccard similarity between two character sets.
+     * Jaccard Index = |Intersection| / |Union|
+     */
+    private double calculateSimilarity(CharFingerprint f1, CharFingerprint f2) {
+        comparisons++;
+        return CharFingerprint.jaccard(f1, f2);
     }
 
     /**
      * Finds groups of similar tweets from a list.
      * @param tweets The list of all tweets to compare.
      * @return A list of groups (lists) of similar tweets.
+     * @throws CancellationException If the calling thread is interrupted.
      */
     public List<List<Tweet>> findSimilarGroups(List<Tweet> tweets) {
+        comparisons = 0;
+        if (mode == Mode.MIN_HASH && similarityThreshold > 0) {
+            return findSimilarGroupsMinHash(tweets);
+        }
         List<List<Tweet>> similarGroups = new ArrayList<>();
         boolean[] visited = new boolean[tweets.size()];
+        CharFingerprint[] fingerprints = fingerprints(tweets);
 
         for (int i = 0; i < tweets.size(); i++) {
+            checkpoint(i, tweets.size());
             if (!visited[i]) {
                 List<Tweet> currentGroup = new ArrayList<>();
                 currentGroup.add(tweets.get(i));
@@ -61,10 +100,7 @@ public class HashSimilarity {
 
                 for (int j = i + 1; j < tweets.size(); j++) {
                     if (!visited[j]) {
-                        double similarity = calculateSimilarity(
-                                tweets.get(i).getOriginalText().toLowerCase(),
-                                tweets.get(j).getOriginalText().toLowerCase()
-                        );
+                        double similarity = calculateSimilarity(fingerprints[i], fingerprints[j]);
                         if (similarity >= similarityThreshold) {
                             currentGroup.add(tweets.get(j));
                             visited[j] = true;
@@ -78,4 +114,111 @@ public class HashSimilarity {
         }
         return similarGroups;
     }
+
+    /**
+     * Finds the same groups as the exact mode, but only checks pairs that MinHash/LSH
+     * puts in a common bucket. A pair above the threshold can be missed with small probability.
+     */
+    private List<List<Tweet>> findSimilarGroupsMinHash(List<Tweet> tweets) {
+        int n = tweets.size();
+        MinHashIndex index = new MinHashIndex(similarityThreshold);
+        CharFingerprint[] fingerprints = fingerprints(tweets);
+        int[][] signatures = new int[n][];
+        for (int i = 0; i < n; i++) {
+            signatures[i] = index.signature(fingerprints[i]);
+            index.add(i, signatures[i]);
+        }
+
+        List<List<Tweet>> similarGroups = new ArrayList<>();
+        boolean[] visited = new boolean[n];
+        CandidateCollector candidates = new CandidateCollector(visited);
+
+        for (int i = 0; i < n; i++) {
+            checkpoint(i, n);
+            if (visited[i]) {
+                continue;
+            }
+            visited[i] = true;
+            candidates.reset(i);
+            index.forEachCandidate(signatures[i], candidates);
+            candidates.sort();
+
+            List<Tweet> currentGroup = new ArrayList<>();
+            currentGroup.add(tweets.get(i));
+            for (int c = 0; c < candidates.size; c++) {
+                int j = candidates.ids[c];
+                if (calculateSimilarity(fingerprints[i], fingerprints[j]) >= similarityThreshold) {
+                    currentGroup.add(tweets.get(j));
+                    visited[j] = true;
+                }
+            }
+            if (currentGroup.size() > 1) {
+                similarGroups.add(currentGroup);
+            }
+        }
+        return similarGroups;
+    }
+
+    /**
+     * Reports progress and honours interruption every {@value #PROGRESS_INTERVAL} tweets.
+     */
+    private void checkpoint(int done, int total) {
+        if (done % PROGRESS_INTERVAL != 0) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Similarity search cancelled");
+        }
+        if (progressListener != null) {
+            progressListener.progress(done, total);
+        }
+    }
+
+    /**
+     * Looks up the cached character fingerprint of every tweet once, outside the comparison loops.
+     */
+    private static CharFingerprint[] fingerprints(List<Tweet> tweets) {
+        CharFingerprint[] fingerprints = new CharFingerprint[tweets.size()];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = tweets.get(i).getCharFingerprint();
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Collects the distinct unvisited candidates that come after the current leader tweet.
+     */
+    private static final class CandidateCollector implements IntConsumer {
+        private final boolean[] visited;
+        private final int[] seenBy;
+        private int leader;
+        int[] ids = new int[16];
+        int size;
+
+        CandidateCollector(boolean[] visited) {
+            this.visited = visited;
+            this.seenBy = new int[visited.length];
+            Arrays.fill(seenBy, -1);
+        }
+
+        void reset(int leader) {
+            this.leader = leader;
+            this.size = 0;
+        }
+
+        void sort() {
+            Arrays.sort(ids, 0, size);
+        }
+
+        @Override
+        public void accept(int j) {
+            if (j > leader && !visited[j] && seenBy[j] != leader) {
+                seenBy[j] = leader;
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = j;
+            }
+        }
+    }
 }
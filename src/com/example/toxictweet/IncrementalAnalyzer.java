@@ -0,0 +1,524 @@
+package com.example.toxictweet;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Keeps the analysis of a growing tweet list up to date, so that appending tweets costs work in
+ * proportion to what was appended instead of a full re-run.
+ * <p>
+ * Similarity groups follow the greedy rule of {@link HashSimilarity}: a tweet joins the group of the
+ * earliest leader it is similar to, or else leads a new group. Only leaders are kept in a
+ * {@link MinHashIndex}, so a new tweet is compared with the few leaders sharing a bucket, and the
+ * groups equal those of {@link HashSimilarity.Mode#MIN_HASH} on the whole list.
+ * <p>
+ * Clusters are connected components, as in {@link GraphAnalyzer.ClusteringMode#UNION_FIND}. New
+ * retweet edges are merged into a growable union-find whose member lists are merged smaller into
+ * larger. Every toxic component keeps its members ordered by the {@link SourceIndex#rankSources}
+ * rule; within a component that rule only needs whole-graph degrees, so the best candidates are read
+ * off the front without revisiting the cluster.
+ * <p>
+ * Results are views over append-only storage: publishing one costs time in the number of groups
+ * and clusters, not tweets or users, and earlier results stay valid while later updates run.
+ * Not thread-safe.
+ */
+public class IncrementalAnalyzer {
+    /** Tweets processed between cancellation checks. */
+    private static final int CHECK_INTERVAL = 256;
+
+    private final UserGraph.Builder graph;
+    private final double similarityThreshold;
+    private final MinHashIndex leaders;
+
+    // Detection and similarity state
+    private int toxicCursor;    // Tweets [0, toxicCursor) were checked for toxicity
+    private int similarCursor;  // Tweets [0, similarCursor) were placed in a group
+    private final AppendOnlyList<Tweet> toxicTweets = new AppendOnlyList<>();
+    private final TreeMap<Integer, AppendOnlyList<Tweet>> groups = new TreeMap<>(); // By leader, two or more members
+    private int[] candidates = new int[16];
+    private int candidateCount;
+    private long comparisons;
+
+    // Clustering state, indexed by user
+    private int edgeCursor;     // Builder edges [0, edgeCursor) were merged
+    private int markedCursor;   // Toxic tweets [0, markedCursor) have marked their user
+    private int userCount;
+    private String[] userIds = new String[16];
+    private int[] parent = new int[16];
+    private int[] inDegree = new int[16];   // Distinct users retweeting this one, self excluded
+    private int[] outDegree = new int[16];  // Distinct users this one retweeted, self excluded
+    private Component[] components = new Component[16]; // Per root; null for a plain user never merged
+    private final EdgeSet edges = new EdgeSet();
+    private final LinkedHashSet<Component> toxicComponents = new LinkedHashSet<>();
+    private final Comparator<Integer> sourceOrder = (a, b) -> {
+        if (inDegree[a] != inDegree[b]) return Integer.compare(inDegree[a], inDegree[b]);
+        if (outDegree[a] != outDegree[b]) return Integer.compare(outDegree[b], outDegree[a]);
+        return userIds[a].compareTo(userIds[b]);
+    };
+    private long nodesVisited; // Work done by the last updateClusters call
+    private long edgesVisited;
+
+    /**
+     * A component with more than one user, or with a toxic user.
+     */
+    private static final class Component {
+        int[] members;
+        int size;
+        TreeSet<Integer> ranking; // Members by source rank; only kept once the component is toxic
+        ClusterView view;          // Published view, or null after a change
+        List<String> sources;      // Ranked candidates of the published view, or null
+        int sourcesLimit;
+
+        Component(int user) {
+            members = new int[] {user};
+            size = 1;
+        }
+
+        void add(int user) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = user;
+        }
+    }
+
+    /**
+     * @param graph The builder the tweets' users and retweet edges are added to.
+     * @param thresholdPercent The similarity threshold, as for {@link HashSimilarity}.
+     */
+    public IncrementalAnalyzer(UserGraph.Builder graph, double thresholdPercent) {
+        this.graph = graph;
+        this.similarityThreshold = thresholdPercent / 100.0;
+        this.leaders = new MinHashIndex(Math.max(similarityThreshold, 0.01));
+    }
+
+    /**
+     * @return The number of tweets whose similarity group is settled.
+     */
+    public int getTweetCount() { return similarCursor; }
+
+    /**
+     * @return The number of toxic tweets whose users have been clustered.
+     */
+    public int getClusteredCount() { return markedCursor; }
+
+    /**
+     * @return The number of pairs compared since the analyzer was created.
+     */
+    public long getComparisonCount() { return comparisons; }
+
+    /**
+     * @return The number of users merged or re-ranked by the last {@link #updateClusters} call.
+     */
+    public long getNodesVisited() { return nodesVisited; }
+
+    /**
+     * @return The number of new edges read by the last {@link #updateClusters} call.
+     */
+    public long getEdgesVisited() { return edgesVisited; }
+
+    /**
+     * Collects the toxic tweets among those appended since the last call; detection must have run on them.
+     * @return Every toxic tweet so far, in list order.
+     */
+    public List<Tweet> updateToxicTweets(List<Tweet> tweets) {
+        for (; toxicCursor < tweets.size(); toxicCursor++) {
+            Tweet tweet = tweets.get(toxicCursor);
+            if (tweet.isToxic()) {
+                toxicTweets.add(tweet);
+            }
+        }
+        return toxicTweets.snapshot();
+    }
+
+    /**
+     * Places the tweets appended since the last call into similarity groups.
+     * @return The groups with at least two tweets, ordered by their first tweet.
+     * @throws CancellationException If the calling thread is interrupted; the next call resumes where this one stopped.
+     */
+    public List<List<Tweet>> updateSimilarGroups(List<Tweet> tweets) {
+        for (; similarCursor < tweets.size(); similarCursor++) {
+            if (similarCursor % CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Similarity update cancelled");
+            }
+            place(tweets, similarCursor);
+        }
+        List<List<Tweet>> result = new ArrayList<>(groups.size());
+        for (AppendOnlyList<Tweet> group : groups.values()) {
+            result.add(group.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Adds tweet i to the group of the earliest similar leader, or makes it a leader.
+     */
+    private void place(List<Tweet> tweets, int i) {
+        Tweet tweet = tweets.get(i);
+        if (similarityThreshold <= 0) {
+            // Every pair is similar: everything joins the first tweet
+            if (i > 0) {
+                join(tweets, 0, tweet);
+            }
+            return;
+        }
+        CharFingerprint fingerprint = tweet.getCharFingerprint();
+        int[] signature = leaders.signature(fingerprint);
+        candidateCount = 0;
+        leaders.forEachCandidate(signature, this::addCandidate);
+        Arrays.sort(candidates, 0, candidateCount);
+        for (int c = 0; c < candidateCount; c++) {
+            int leader = candidates[c];
+            if (c > 0 && leader == candidates[c - 1]) {
+                continue; // Shared more than one band
+            }
+            comparisons++;
+            if (CharFingerprint.jaccard(tweets.get(leader).getCharFingerprint(), fingerprint) >= similarityThreshold) {
+                join(tweets, leader, tweet);
+                return;
+            }
+        }
+        leaders.add(i, signature);
+    }
+
+    private void addCandidate(int leader) {
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+        candidates[candidateCount++] = leader;
+    }
+
+    private void join(List<Tweet> tweets, int leader, Tweet tweet) {
+        AppendOnlyList<Tweet> group = groups.get(leader);
+        if (group == null) {
+            group = new AppendOnlyList<>();
+            group.add(tweets.get(leader));
+            groups.put(leader, group);
+        }
+        group.add(tweet);
+    }
+
+    /**
+     * Merges the retweet edges added to the graph builder since the last call, and the users of the
+     * toxic tweets collected by {@link #updateToxicTweets} since then.
+     * @return One cluster per component holding a toxic user, in the order the components became toxic.
+     */
+    public List<Set<String>> updateClusters() {
+        nodesVisited = 0;
+        edgesVisited = 0;
+        addUsers(graph.userCount());
+        int edgeCount = graph.edgeCount();
+        for (; edgeCursor < edgeCount; edgeCursor++) {
+            addEdge(graph.edgeSource(edgeCursor), graph.edgeTarget(edgeCursor));
+        }
+        List<Tweet> toxic = toxicTweets.snapshot();
+        for (; markedCursor < toxic.size(); markedCursor++) {
+            int user = graph.indexOf(toxic.get(markedCursor).getUserId());
+            markToxic(component(find(user)));
+        }
+
+        List<Set<String>> clusters = new ArrayList<>(toxicComponents.size());
+        for (Component component : toxicComponents) {
+            if (component.view == null) {
+                component.view = new ClusterView(component.members, component.size, userIds);
+                component.sources = null;
+            }
+            clusters.add(component.view);
+        }
+        return clusters;
+    }
+
+    /**
+     * Ranks the source candidates of the clusters returned by the last {@link #updateClusters} call.
+     * Only clusters that changed since the previous ranking are ranked again.
+     * @return The best candidates of each cluster, best first, in cluster order.
+     */
+    public List<List<String>> sourceCandidates(int limit) {
+        List<List<String>> ranked = new ArrayList<>(toxicComponents.size());
+        for (Component component : toxicComponents) {
+            if (component.sources == null || component.sourcesLimit != limit) {
+                List<String> sources = new ArrayList<>(Math.min(limit, component.size));
+                for (Iterator<Integer> it = component.ranking.iterator(); it.hasNext() && sources.size() < limit; ) {
+                    sources.add(userIds[it.next()]);
+                }
+                component.sources = sources;
+                component.sourcesLimit = limit;
+            }
+            ranked.add(component.sources);
+        }
+        return ranked;
+    }
+
+    private void addUsers(int count) {
+        if (count > parent.length) {
+            int capacity = Math.max(count, parent.length * 2);
+            userIds = Arrays.copyOf(userIds, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            components = Arrays.copyOf(components, capacity);
+        }
+        for (; userCount < count; userCount++) {
+            userIds[userCount] = graph.userId(userCount);
+            parent[userCount] = userCount;
+        }
+    }
+
+    /**
+     * Counts a new distinct edge towards both users' degrees and merges their components.
+     */
+    private void addEdge(int from, int to) {
+        edgesVisited++;
+        if (from == to || !edges.add((long) from << 32 | to)) {
+            return; // Self-loops and duplicates change neither degrees nor components
+        }
+        Component source = components[find(from)];
+        Component target = components[find(to)];
+        // A ranked member must leave its ranking while its key changes
+        unrank(source, from);
+        unrank(target, to);
+        outDegree[from]++;
+        inDegree[to]++;
+        rank(source, from);
+        rank(target, to);
+        union(from, to);
+    }
+
+    private void unrank(Component component, int user) {
+        if (component != null && component.ranking != null) {
+            component.ranking.remove(user);
+            component.view = null;
+        }
+    }
+
+    private void rank(Component component, int user) {
+        if (component != null && component.ranking != null) {
+            component.ranking.add(user);
+        }
+    }
+
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Path halving
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the state of a root, creating it for a user that was never merged.
+     */
+    private Component component(int root) {
+        Component component = components[root];
+        if (component == null) {
+            component = new Component(root);
+            components[root] = component;
+        }
+        return component;
+    }
+
+    /**
+     * Merges the components of a and b, moving the members of the smaller into the larger.
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        Component large = component(rootA);
+        Component small = component(rootB);
+        if (large.size < small.size) {
+            Component tmp = large;
+            large = small;
+            small = tmp;
+            int root = rootA;
+            rootA = rootB;
+            rootB = root;
+        }
+        parent[rootB] = rootA;
+        components[rootB] = null;
+        for (int i = 0; i < small.size; i++) {
+            large.add(small.members[i]);
+        }
+        nodesVisited += small.size;
+        large.view = null;
+        if (large.ranking != null) {
+            for (int i = 0; i < small.size; i++) {
+                large.ranking.add(small.members[i]);
+            }
+        }
+        if (small.ranking != null) {
+            toxicComponents.remove(small);
+            markToxic(large);
+        }
+    }
+
+    /**
+     * Starts ranking a component that just got its first toxic user; it stays toxic from then on.
+     */
+    private void markToxic(Component component) {
+        if (component.ranking != null) {
+            return;
+        }
+        component.ranking = new TreeSet<>(sourceOrder);
+        for (int i = 0; i < component.size; i++) {
+            component.ranking.add(component.members[i]);
+        }
+        nodesVisited += component.size;
+        component.view = null;
+        toxicComponents.add(component);
+    }
+
+    /**
+     * Set of distinct edges packed into longs, with open addressing. Zero marks a free slot, which is
+     * safe because self-loops are never stored.
+     */
+    private static final class EdgeSet {
+        private long[] slots = new long[64];
+        private int size;
+
+        boolean add(long edge) {
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int slot = mix(edge) & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == edge) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = edge;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            int mask = slots.length - 1;
+            for (long edge : old) {
+                if (edge != 0) {
+                    int slot = mix(edge) & mask;
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = edge;
+                }
+            }
+        }
+
+        private static int mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+            return (int) (z ^ (z >>> 33));
+        }
+    }
+
+    /**
+     * A list that only grows at the end; its snapshots keep their size and contents while it grows.
+     */
+    private static final class AppendOnlyList<E> {
+        private Object[] items = new Object[4];
+        private int size;
+
+        void add(E item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2); // Old snapshots keep the old array
+            }
+            items[size++] = item;
+        }
+
+        List<E> snapshot() {
+            return new Snapshot<>(items, size);
+        }
+    }
+
+    private static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] items;
+        private final int size;
+
+        Snapshot(Object[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+            }
+            return (E) items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The user IDs of a component at the time it was published. Member arrays only grow at the end
+     * and user IDs never change, so the view stays valid after later merges.
+     */
+    private static final class ClusterView extends AbstractSet<String> {
+        private final int[] members;
+        private final int size;
+        private final String[] userIds;
+        private Set<String> lookup; // Built on the first contains call
+
+        ClusterView(int[] members, int size, String[] userIds) {
+            this.members = members;
+            this.size = size;
+            this.userIds = userIds;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public String next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return userIds[members[next++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public synchronized boolean contains(Object o) {
+            if (lookup == null) {
+                lookup = new HashSet<>(this);
+            }
+            return lookup.contains(o);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.toxictweet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a compiled toxic word matcher in sync with a lexicon file.
+ * <p>
+ * A background thread watches the file and recompiles the matcher when its contents change.
+ * The new {@link Lexicon} is swapped in atomically, so an analysis that already took the
+ * current lexicon finishes with it. Compiled Aho-Corasick automata are cached on disk next to
+ * the lexicon, keyed by a hash of its words, so a cold start with an unchanged lexicon skips compilation.
+ */
+public class LexiconManager implements AutoCloseable {
+    private static final int CACHE_MAGIC = 0x54544143; // "TTAC"
+    private static final int CACHE_VERSION = 1;
+    /** Suffix of the compiled-matcher cache written next to a lexicon file. */
+    public static final String CACHE_SUFFIX = ".matcher-cache";
+    /** Editors often write a file in several steps; changes are applied once it has been quiet this long. */
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final Path lexiconFile;
+    private final String algorithm;
+    private final AtomicReference<Lexicon> current = new AtomicReference<>();
+    private final List<Consumer<Lexicon>> listeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * An immutable lexicon version: the words and the matcher compiled from them.
+     */
+    public static final class Lexicon {
+        private final List<String> words;
+        private final ToxicMatcher matcher;
+        private final String hash;
+
+        private Lexicon(List<String> words, ToxicMatcher matcher, String hash) {
+            this.words = Collections.unmodifiableList(words);
+            this.matcher = matcher;
+            this.hash = hash;
+        }
+
+        // Getters
+        public List<String> getWords() { return words; }
+        public ToxicMatcher getMatcher() { return matcher; }
+        public String getHash() { return hash; }
+    }
+
+    public LexiconManager(Path lexiconFile) {
+        this(lexiconFile, System.getProperty(ToxicMatcher.ALGORITHM_PROPERTY, "aho-corasick"));
+    }
+
+    public LexiconManager(Path lexiconFile, String algorithm) {
+        this.lexiconFile = lexiconFile.toAbsolutePath();
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Loads the lexicon and starts watching the file for changes.
+     */
+    public void start() throws IOException {
+        reload();
+        watchService = FileSystems.getDefault().newWatchService();
+        lexiconFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::watch, "lexicon-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @return The lexicon currently in effect, or null before the first load.
+     */
+    public Lexicon current() {
+        return current.get();
+    }
+
+    /**
+     * Registers a listener that is called on the watcher thread after each swap.
+     */
+    public void addListener(Consumer<Lexicon> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads the lexicon file and swaps in a new matcher if its words changed.
+     * @return true if a new lexicon was swapped in.
+     */
+    public boolean reload() throws IOException {
+        List<String> words = readWords(lexiconFile);
+        String hash = hash(words, algorithm);
+        Lexicon previous = current.get();
+        if (previous != null && previous.hash.equals(hash)) {
+            return false;
+        }
+        Lexicon lexicon = new Lexicon(words, compile(words, algorithm, cacheFileFor(lexiconFile)), hash);
+        current.set(lexicon);
+        for (Consumer<Lexicon> listener : listeners) {
+            listener.accept(lexicon);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close(); // Ends the watcher loop
+        }
+    }
+
+    private void watch() {
+        Path fileName = lexiconFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= fileName.equals(event.context());
+                }
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                // Let the write settle, then drop the events it produced in the meantime
+                Thread.sleep(DEBOUNCE_MILLIS);
+                WatchKey pending;
+                while ((pending = watchService.poll()) != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                try {
+                    reload();
+                } catch (IOException | RuntimeException e) {
+                    // Keep the last good lexicon; the next change triggers another attempt
+                    System.err.println("Could not reload " + lexiconFile + ": " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Reads a lexicon file: one word per line, normalized like tweet text by
+     * {@link TextNormalizer#normalizeWords}, blank lines and duplicates skipped.
+     */
+    static List<String> readWords(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                words.add(line);
+            }
+        }
+        return TextNormalizer.normalizeWords(words);
+    }
+
+    /**
+     * @return The cache file used for a lexicon file.
+     */
+    public static Path cacheFileFor(Path lexiconFile) {
+        return lexiconFile.resolveSibling(lexiconFile.getFileName() + CACHE_SUFFIX);
+    }
+
+    /**
+     * Compiles a matcher, reusing the cached Aho-Corasick automaton when it was built from the same words.
+     * Other algorithms are always compiled. A missing, damaged or outdated cache is rebuilt; failing to write it is not an error.
+     */
+    public static ToxicMatcher compile(List<String> words, String algorithm, Path cacheFile) {
+        String name = algorithm.trim().toLowerCase();
+        if (!name.equals("aho-corasick") && !name.equals("ahocorasick")) {
+            return ToxicMatcher.create(words, algorithm);
+        }
+        String hash = hash(words, algorithm);
+        AhoCorasick cached = readCache(cacheFile, hash);
+        if (cached != null) {
+            return cached;
+        }
+        AhoCorasick compiled = new AhoCorasick(words);
+        writeCache(cacheFile, hash, compiled);
+        return compiled;
+    }
+
+    private static AhoCorasick readCache(Path cacheFile, String hash) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile), 1 << 16))) {
+            long length = Files.size(cacheFile);
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION || !in.readUTF().equals(hash)) {
+                return null;
+            }
+            // The header is two ints and the hash, which is ASCII
+            return AhoCorasick.readFrom(in, length - 4 - 4 - 2 - hash.length());
+        } catch (IOException | RuntimeException e) {
+            return null; // Corrupt or from another version: recompile
+        }
+    }
+
+    /**
+     * Writes the cache through a temporary file, so readers never see a half-written cache.
+     */
+    private static void writeCache(Path cacheFile, String hash, AhoCorasick matcher) {
+        Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeUTF(hash);
+                matcher.writeTo(out);
+            }
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing more to clean up
+            }
+        }
+    }
+
+    /**
+     * Hashes the word list and algorithm, so the cache key follows the compiled input and not the file layout.
+     */
+    static String hash(List<String> words, String algorithm) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(algorithm.trim().toLowerCase().getBytes(StandardCharsets.UTF_8));
+            for (String word : words) {
+                digest.update((byte) '\n');
+                digest.update(word.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.toxictweet;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -21,19 +24,36 @@ import javafx.stage.Stage;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 public class Main extends Application {
+    /** Tweet files at least this large are shown page by page instead of being loaded. */
+    private static final long PAGED_FILE_SIZE = 256L << 20;
 
     private final ObservableList<Tweet> tweets = FXCollections.observableArrayList();
-    private final List<String> toxicWords = new ArrayList<>();
-    private final Map<String, User> users = new HashMap<>();
+    private final AnalysisPipeline pipeline = new AnalysisPipeline();
 
     private final TableView<Tweet> tweetTable = new TableView<>();
     private final TextArea resultArea = new TextArea();
+    private final Button loadTweetsBtn = new Button("Load Tweets (CSV/TXT)");
+    private final Button appendTweetsBtn = new Button("Append Tweets");
+    private final Button analyzeBtn = new Button("Run Full Analysis");
+    private final Button cancelBtn = new Button("Cancel");
+    private final Button openSnapshotBtn = new Button("Open Snapshot");
+    private final Button saveSnapshotBtn = new Button("Save Snapshot");
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Label statusLabel = new Label();
+    private Task<AnalysisResult> analysisTask; // The analysis running in the background, or null
+    private AnalysisResult lastResult;         // The last complete analysis, for saving snapshots
+    private LexiconManager lexiconManager;     // Watches toxic_words.txt, or null if it could not be read
+    private PagedTweets pagedTweets;           // Large file shown page by page, or null when tweets are loaded
+    private final Font textFont = Font.font("System", 12); // Shared by all table cells
+    private final Font toxicFont = Font.font("System", FontWeight.BOLD, 12);
 
     public static void main(String[] args) {
         launch(args);
@@ -55,11 +75,17 @@ public class Main extends Application {
 
         HBox controlBox = new HBox(10);
         controlBox.setAlignment(Pos.CENTER);
-        Button loadTweetsBtn = new Button("Load Tweets (CSV/TXT)");
-        Button analyzeBtn = new Button("Run Full Analysis");
-        controlBox.getChildren().addAll(loadTweetsBtn, analyzeBtn);
+        cancelBtn.setDisable(true);
+        saveSnapshotBtn.setDisable(true);
+        controlBox.getChildren().addAll(loadTweetsBtn, appendTweetsBtn, analyzeBtn, cancelBtn, openSnapshotBtn, saveSnapshotBtn);
 
-        topContainer.getChildren().addAll(titleLabel, controlBox);
+        HBox progressBox = new HBox(10);
+        progressBox.setAlignment(Pos.CENTER);
+        progressBar.setPrefWidth(300);
+        progressBar.setVisible(false);
+        progressBox.getChildren().addAll(progressBar, statusLabel);
+
+        topContainer.getChildren().addAll(titleLabel, controlBox, progressBox);
         root.setTop(topContainer);
 
         // --- Center: Tweet Table ---
@@ -78,7 +104,11 @@ public class Main extends Application {
 
         // --- Event Handlers ---
         loadTweetsBtn.setOnAction(e -> loadTweetsFromFile(primaryStage));
+        appendTweetsBtn.setOnAction(e -> appendTweetsFromFile(primaryStage));
         analyzeBtn.setOnAction(e -> runAnalysis());
+        cancelBtn.setOnAction(e -> cancelAnalysis());
+        openSnapshotBtn.setOnAction(e -> openSnapshot(primaryStage));
+        saveSnapshotBtn.setOnAction(e -> saveSnapshot(primaryStage));
 
         // --- Initial Data Loading ---
         loadToxicWords(); // Load the toxic words list on startup
@@ -90,6 +120,20 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Creates one run of tweet text, bold and red when it is toxic.
+     */
+    private Text textNode(String text, boolean toxic) {
+        Text textNode = new Text(text);
+        if (toxic) {
+            textNode.setFill(Color.RED);
+            textNode.setFont(toxicFont);
+        } else {
+            textNode.setFont(textFont);
+        }
+        return textNode;
+    }
+
     /**
      * Configures the columns for the JavaFX TableView.
      */
@@ -118,31 +162,22 @@ public class Main extends Application {
                 } else {
                     Tweet tweet = getTableView().getItems().get(getIndex());
 
-                    // Print tweet text to terminal
-                    System.out.println("Tweet ID: " + tweet.getTweetId() + " | User: " + tweet.getUserId());
-                    System.out.println("Text: " + item);
-                    System.out.println("Toxic: " + tweet.isToxic());
-                    if (tweet.isToxic()) {
-                        System.out.println("Toxic Words: " + tweet.getToxicWords());
-                    }
-                    System.out.println("---");
-
                     TextFlow textFlow = new TextFlow();
                     textFlow.setPadding(new Insets(2, 5, 2, 5));
                     textFlow.setLineSpacing(1);
 
-                    String[] words = item.split("(?<=\\s)|(?=\\s)");
-                    for(String word : words) {
-                        Text textNode = new Text(word);
-                        textNode.setFont(Font.font("System", 12));
-
-                        // Highlight toxic words in red if tweet is toxic
-                        if (tweet.isToxic() && tweet.getToxicWords().stream()
-                                .anyMatch(toxicWord -> word.toLowerCase().contains(toxicWord))) {
-                            textNode.setFill(Color.RED);
-                            textNode.setFont(Font.font("System", FontWeight.BOLD, 12));
+                    // Slice the text along the spans found at detection time; toxic words in red
+                    int[] spans = tweet.isToxic() ? tweet.getToxicSpans() : Tweet.NO_SPANS;
+                    int pos = 0;
+                    for (int k = 0; k < spans.length; k += 2) {
+                        if (spans[k] > pos) {
+                            textFlow.getChildren().add(textNode(item.substring(pos, spans[k]), false));
                         }
-                        textFlow.getChildren().add(textNode);
+                        textFlow.getChildren().add(textNode(item.substring(spans[k], spans[k + 1]), true));
+                        pos = spans[k + 1];
+                    }
+                    if (pos < item.length()) {
+                        textFlow.getChildren().add(textNode(item.substring(pos), false));
                     }
                     setText(null);
                     setGraphic(textFlow);
@@ -181,20 +216,61 @@ public class Main extends Application {
         tweetTable.setFixedCellSize(35); // Set compact fixed cell height
     }
     /**
-     * Loads the list of toxic words from toxic_words.txt.
+     * Table items backed by a paged file or a columnar store, without copying their tweets;
+     * grows as the source gets more records.
+     */
+    private static final class TweetListView extends ObservableListBase<Tweet> {
+        private final List<Tweet> source;
+        private int size;
+
+        TweetListView(List<Tweet> source) {
+            this.source = source;
+        }
+
+        /**
+         * Announces the records added since the last call; must run on the FX thread.
+         */
+        void sync() {
+            int newSize = source.size();
+            if (newSize > size) {
+                beginChange();
+                nextAdd(size, newSize);
+                size = newSize;
+                endChange();
+            }
+        }
+
+        @Override public Tweet get(int index) { return source.get(index); }
+        @Override public int size() { return size; }
+    }
+
+    @Override
+    public void stop() throws IOException {
+        closePagedView();
+        if (lexiconManager != null) {
+            lexiconManager.close();
+        }
+    }
+
+    /**
+     * Loads the list of toxic words from toxic_words.txt and keeps following changes to the file.
+     * An edited list takes effect from the next analysis.
      */
     private void loadToxicWords() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("toxic_words.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    toxicWords.add(line.trim().toLowerCase());
+        try {
+            lexiconManager = new LexiconManager(Paths.get("toxic_words.txt"));
+            lexiconManager.start();
+            lexiconManager.addListener(lexicon -> Platform.runLater(() -> {
+                if (!statusLabel.textProperty().isBound()) {
+                    statusLabel.setText("Toxic word list reloaded (" + lexicon.getWords().size() + " words).");
                 }
-            }
+            }));
+            pipeline.setLexiconManager(lexiconManager);
         } catch (IOException e) {
+            lexiconManager = null;
             resultArea.setText("Error loading toxic_words.txt. Make sure the file exists.\n" + e.getMessage());
             // Add some default words if file loading fails
-            toxicWords.addAll(Arrays.asList("hate", "stupid", "idiot", "kill", "dumb"));
+            pipeline.setToxicWords(AnalysisPipeline.DEFAULT_TOXIC_WORDS);
         }
     }
 
@@ -217,8 +293,8 @@ public class Main extends Application {
      * Loads some sample tweets into the table for quick demonstration.
      */
     private void loadSampleTweets() {
-        tweets.clear();
-        users.clear();
+        closePagedView();
+        pipeline.clear();
 
         List<String> sampleData = Arrays.asList(
                 "101,userA,This is a wonderful day!",
@@ -232,139 +308,391 @@ public class Main extends Application {
         );
 
         for (String line : sampleData) {
-            processTweetLine(line);
+            pipeline.processTweetLine(line);
         }
 
+        showPipelineTweets();
         tweetTable.refresh();
     }
 
 
     /**
-     * Parses the selected tweet file line by line.
+     * Shows the pipeline's tweets in the table. Columnar storage is shown through a view,
+     * since copying it would create an object per tweet.
+     */
+    private void showPipelineTweets() {
+        if (pipeline.isColumnarStorage()) {
+            TweetListView items = new TweetListView(pipeline.getTweets());
+            items.sync();
+            tweets.clear();
+            tweetTable.setItems(items);
+        } else {
+            tweets.setAll(pipeline.getTweets());
+            tweetTable.setItems(tweets);
+        }
+    }
+
+    /**
+     * Parses the selected tweet file line by line, or pages through it if it is too large to load.
      */
     private void parseTweetFile(File file) {
-        tweets.clear();
-        users.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                processTweetLine(line);
-            }
+        closePagedView();
+        pipeline.clear();
+        lastResult = null; // The last analysis no longer matches the loaded tweets
+        saveSnapshotBtn.setDisable(true);
+        if (file.length() >= PAGED_FILE_SIZE) {
+            openPagedView(file);
+            return;
+        }
+        try {
+            pipeline.parseTweetFile(file);
         } catch (IOException e) {
             resultArea.setText("Error reading tweet file: " + e.getMessage());
         }
+        showPipelineTweets();
         tweetTable.refresh();
     }
 
     /**
-     * Processes a single line from the tweet data source.
+     * Shows a large file through a record index built in the background; rows are read from
+     * the file only when the table displays them.
      */
-    private void processTweetLine(String line) {
-        String[] parts = line.split(",", 4); // Split into max 4 parts
-        if (parts.length >= 3) {
-            String tweetId = parts[0].trim();
-            String userId = parts[1].trim();
-            String text = parts[2].trim();
-
-            Tweet tweet = new Tweet(tweetId, userId, text);
-            tweets.add(tweet);
-
-            // Update or create user
-            users.computeIfAbsent(userId, User::new);
-
-            // Handle retweets for graph building
-            if (parts.length == 4 && parts[3].toUpperCase().startsWith("RT@")) {
-                String sourceUser = parts[3].substring(3).trim();
-                users.computeIfAbsent(sourceUser, User::new);
-                // Add a directed edge from retweeter to source user
-                users.get(userId).addConnection(sourceUser);
-            }
+    private void openPagedView(File file) {
+        try {
+            TweetFileIndex index = new TweetFileIndex(file.toPath());
+            PagedTweets paged = new PagedTweets(index);
+            TweetListView items = new TweetListView(paged);
+            index.addListener(i -> Platform.runLater(() -> {
+                if (pagedTweets != paged) {
+                    return; // Another file was opened meanwhile
+                }
+                items.sync();
+                if (!statusLabel.textProperty().isBound()) {
+                    statusLabel.setText(indexStatus(i));
+                }
+            }));
+            pagedTweets = paged;
+            tweets.clear();
+            tweetTable.setItems(items);
+            resultArea.setText(file.getName() + " is shown page by page; run the analysis to detect toxic tweets.");
+            index.start();
+        } catch (IOException e) {
+            resultArea.setText("Error reading tweet file: " + e.getMessage());
         }
     }
 
+    private static String indexStatus(TweetFileIndex index) {
+        if (index.getFailure() != null) {
+            return "Indexing failed: " + index.getFailure().getMessage();
+        }
+        return (index.isComplete() ? "Indexed " : "Indexing... ") + index.recordCount() + " tweets";
+    }
 
     /**
-     * Runs the full analysis pipeline on the loaded tweets.
+     * Closes the paged file, if any, and shows the loaded tweets again.
+     */
+    private void closePagedView() {
+        if (pagedTweets == null) {
+            return;
+        }
+        try {
+            pagedTweets.getIndex().close();
+        } catch (IOException e) {
+            // Nothing left to read from it
+        }
+        pagedTweets = null;
+        tweetTable.setItems(tweets);
+    }
+
+    /**
+     * Runs the full analysis pipeline on the loaded tweets in a background task.
+     * Each stage's results are shown as soon as the stage completes.
      */
     private void runAnalysis() {
-        if (tweets.isEmpty()) {
+        if (tweetTable.getItems().isEmpty()) {
             resultArea.setText("Please load some tweets before running the analysis.");
             return;
         }
+        if (analysisTask != null && analysisTask.isRunning()) {
+            return;
+        }
+        if (pagedTweets != null) {
+            runPagedDetection(pagedTweets);
+            return;
+        }
 
-        // --- Step 1: Preprocessing and Toxic Detection ---
-        RabinKarp toxicDetector = new RabinKarp(toxicWords);
-        for (Tweet tweet : tweets) {
-            String preprocessedText = preprocess(tweet.getOriginalText());
-            Set<String> foundToxicWords = toxicDetector.search(preprocessedText);
-            if (!foundToxicWords.isEmpty()) {
-                tweet.setToxic(true);
-                tweet.setToxicWords(foundToxicWords);
+        Task<AnalysisResult> task = new AnalysisTask() {
+            @Override
+            protected AnalysisResult call() {
+                return pipeline.runAnalysis(listener);
             }
+        };
+        task.setOnSucceeded(e -> {
+            lastResult = task.getValue();
+            analysisFinished("Analysis complete.");
+            tweetTable.refresh();
+            displayResults(lastResult);
+        });
+        task.setOnCancelled(e -> {
+            analysisFinished("Analysis cancelled.");
+            tweetTable.refresh();
+        });
+        task.setOnFailed(e -> {
+            analysisFinished("Analysis failed.");
+            resultArea.setText("Analysis failed: " + task.getException());
+        });
+
+        startBackground(task);
+    }
+
+    /**
+     * Appends the tweets of a file to those loaded, line by line, and updates the last analysis
+     * with them instead of analyzing everything again.
+     */
+    private void appendTweetsFromFile(Stage owner) {
+        if (pagedTweets != null) {
+            resultArea.setText("Tweets cannot be appended to a file shown page by page.");
+            return;
+        }
+        if (analysisTask != null && analysisTask.isRunning()) {
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Append Tweet File");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Text Files", "*.txt", "*.csv")
+        );
+        File file = fileChooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
         }
-        tweetTable.refresh();
 
-        // --- Step 2: Similarity Detection ---
-        HashSimilarity similarityDetector = new HashSimilarity(70.0); // 70% threshold
-        List<List<Tweet>> similarGroups = similarityDetector.findSimilarGroups(tweets);
+        Task<AnalysisResult> task = new AnalysisTask() {
+            @Override
+            protected AnalysisResult call() throws IOException {
+                updateMessage("Reading " + file.getName() + "...");
+                try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        pipeline.processTweetLine(line);
+                    }
+                }
+                return pipeline.updateAnalysis(listener);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            lastResult = task.getValue();
+            analysisFinished("Appended " + file.getName() + "; analysis updated.");
+            showPipelineTweets();
+            displayResults(lastResult);
+        });
+        task.setOnCancelled(e -> {
+            analysisFinished("Update cancelled; the appended tweets are analyzed on the next update.");
+            showPipelineTweets();
+        });
+        task.setOnFailed(e -> {
+            analysisFinished("Append failed.");
+            showPipelineTweets();
+            resultArea.setText("Append failed: " + task.getException());
+        });
+        startBackground(task);
+    }
 
-        // --- Step 3: User Propagation Graph Analysis ---
-        List<Tweet> toxicTweets = tweets.stream()
-                .filter(Tweet::isToxic)
-                .collect(Collectors.toList());
-        GraphAnalyzer graphAnalyzer = new GraphAnalyzer(users);
-        List<Set<String>> toxicClusters = graphAnalyzer.findToxicClusters(toxicTweets);
+    /**
+     * A background analysis that reports its stages to the progress bar and shows each partial result.
+     */
+    private abstract class AnalysisTask extends Task<AnalysisResult> {
+        final AnalysisListener listener = new AnalysisListener() {
+            @Override
+            public void stageStarted(String stage) {
+                updateMessage("Running " + stage + "...");
+                updateProgress(overallProgress(stage, 0, 1), 1);
+            }
 
-        // --- Step 4: Display Results ---
-        displayResults(similarGroups, toxicClusters);
+            @Override
+            public void progress(String stage, long done, long total) {
+                updateProgress(overallProgress(stage, done, total), 1);
+            }
+
+            @Override
+            public void stageCompleted(String stage, AnalysisResult partial) {
+                updateProgress(overallProgress(stage, 1, 1), 1);
+                if (!partial.isComplete()) {
+                    Platform.runLater(() -> displayPartialResults(partial));
+                }
+            }
+        };
     }
 
     /**
-     * Preprocesses a tweet's text by converting to lowercase and removing symbols.
+     * Runs toxic detection over a paged file, a few pages at a time. Similarity and clustering
+     * need every tweet in memory and are only run on loaded files.
      */
-    private String preprocess(String text) {
-        return text.toLowerCase().replaceAll("[^a-z0-9\\s]", "");
+    private void runPagedDetection(PagedTweets paged) {
+        Task<AnalysisResult> task = new Task<>() {
+            @Override
+            protected AnalysisResult call() throws IOException {
+                updateMessage("Running " + PipelineMetrics.DETECTION + "...");
+                pipeline.detectPaged(paged, new AnalysisListener() {
+                    @Override
+                    public void progress(String stage, long done, long total) {
+                        updateProgress(done, total);
+                    }
+                });
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            analysisFinished("Detection complete.");
+            tweetTable.refresh();
+            resultArea.setText("--- TOXIC DETECTION COMPLETE (PAGED FILE) ---\n\n"
+                    + "Tweets: " + paged.detectedCount() + "\n"
+                    + "Toxic tweets: " + paged.toxicCount() + "\n\n"
+                    + "Similarity and clustering need every tweet in memory; they run on files under "
+                    + (PAGED_FILE_SIZE >> 20) + " MB.\n"
+                    + "\n--- Stage Metrics ---\n" + pipeline.getMetrics().format());
+        });
+        task.setOnCancelled(e -> {
+            analysisFinished("Detection cancelled.");
+            tweetTable.refresh();
+        });
+        task.setOnFailed(e -> {
+            analysisFinished("Detection failed.");
+            resultArea.setText("Detection failed: " + task.getException());
+        });
+        startBackground(task);
     }
 
     /**
-     * Displays the final analysis results in the TextArea.
+     * Shows the progress of an analysis task and runs it on a daemon thread.
      */
-    private void displayResults(List<List<Tweet>> similarGroups, List<Set<String>> toxicClusters) {
-        StringBuilder sb = new StringBuilder();
+    private void startBackground(Task<AnalysisResult> task) {
+        analysisTask = task;
+        if (isTableDetached()) {
+            // The columnar store is not thread-safe, so the table must not read it while the task writes
+            tweetTable.setItems(FXCollections.emptyObservableList());
+            tweetTable.setPlaceholder(new Label("Tweets are shown again when the analysis is done."));
+        }
+        progressBar.progressProperty().bind(task.progressProperty());
+        statusLabel.textProperty().bind(task.messageProperty());
+        progressBar.setVisible(true);
+        setAnalysisRunning(true);
+
+        Thread worker = new Thread(task, "analysis");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
-        sb.append("--- TOXIC TWEET ANALYSIS COMPLETE ---\n\n");
+    /**
+     * Cancels the running analysis; the pipeline stops at its next cancellation check.
+     */
+    private void cancelAnalysis() {
+        if (analysisTask != null) {
+            analysisTask.cancel(); // Interrupts the worker thread
+        }
+    }
 
-        // Similar Tweet Groups
-        sb.append("--- Similar/Duplicate Tweet Groups (>=70% Similarity) ---\n");
-        if (similarGroups.isEmpty()) {
-            sb.append("No similar tweet groups found.\n");
-        } else {
-            for (int i = 0; i < similarGroups.size(); i++) {
-                sb.append("Group ").append(i + 1).append(":\n");
-                for (Tweet tweet : similarGroups.get(i)) {
-                    sb.append("  - [TweetID: ").append(tweet.getTweetId())
-                            .append(", User: ").append(tweet.getUserId()).append("] ")
-                            .append(tweet.getOriginalText()).append("\n");
-                }
-            }
+    private void analysisFinished(String status) {
+        progressBar.progressProperty().unbind();
+        statusLabel.textProperty().unbind();
+        statusLabel.setText(status);
+        progressBar.setVisible(false);
+        setAnalysisRunning(false);
+        analysisTask = null;
+        if (isTableDetached()) {
+            tweetTable.setPlaceholder(null);
+            showPipelineTweets();
         }
-        sb.append("\n");
+    }
 
-        // Toxic User Clusters
-        sb.append("--- Toxic User Propagation Clusters ---\n");
-        if (toxicClusters.isEmpty()) {
-            sb.append("No toxic user clusters found.\n");
-        } else {
-            for (int i = 0; i < toxicClusters.size(); i++) {
-                Set<String> cluster = toxicClusters.get(i);
-                // Heuristic: Find a source user (one with no incoming connections within the cluster)
-                String source = GraphAnalyzer.findSourceUserInCluster(cluster, users);
-                sb.append("Cluster ").append(i + 1).append(":\n");
-                sb.append("  - Source User (Heuristic): ").append(source).append("\n");
-                sb.append("  - Propagating Users: ").append(String.join(", ", cluster)).append("\n");
-            }
+    /**
+     * @return true if the table shows nothing while a task runs, which is the case for columnar storage.
+     */
+    private boolean isTableDetached() {
+        return pagedTweets == null && pipeline.isColumnarStorage();
+    }
+
+    private void setAnalysisRunning(boolean running) {
+        loadTweetsBtn.setDisable(running);
+        appendTweetsBtn.setDisable(running);
+        analyzeBtn.setDisable(running);
+        cancelBtn.setDisable(!running);
+        openSnapshotBtn.setDisable(running);
+        saveSnapshotBtn.setDisable(running || lastResult == null);
+    }
+
+    /**
+     * Reopens a saved analysis without parsing or analyzing again.
+     */
+    private void openSnapshot(Stage owner) {
+        File file = snapshotChooser("Open Analysis Snapshot").showOpenDialog(owner);
+        if (file == null) {
+            return;
         }
+        try {
+            lastResult = pipeline.loadSnapshot(file);
+            closePagedView();
+            showPipelineTweets();
+            tweetTable.refresh();
+            displayResults(lastResult);
+            statusLabel.setText("Opened " + file.getName() + ".");
+        } catch (IOException e) {
+            lastResult = null;
+            resultArea.setText("Error reading snapshot: " + e.getMessage());
+        }
+        saveSnapshotBtn.setDisable(lastResult == null);
+    }
 
-        resultArea.setText(sb.toString());
+    /**
+     * Saves the loaded tweets and the last complete analysis.
+     */
+    private void saveSnapshot(Stage owner) {
+        File file = snapshotChooser("Save Analysis Snapshot").showSaveDialog(owner);
+        if (file == null || lastResult == null) {
+            return;
+        }
+        try {
+            pipeline.saveSnapshot(file, lastResult);
+            statusLabel.setText("Saved " + file.getName() + ".");
+        } catch (IOException e) {
+            resultArea.setText("Error writing snapshot: " + e.getMessage());
+        }
+    }
+
+    private static FileChooser snapshotChooser(String title) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Analysis Snapshots", "*.tts"));
+        return fileChooser;
+    }
+
+    /**
+     * Maps the progress within a stage to the progress of the whole run, weighting stages by typical cost.
+     */
+    private static double overallProgress(String stage, long done, long total) {
+        double start, end;
+        switch (stage) {
+            case PipelineMetrics.DETECTION: start = 0.0; end = 0.2; break;
+            case PipelineMetrics.SIMILARITY: start = 0.2; end = 0.85; break;
+            case PipelineMetrics.CLUSTERING: start = 0.85; end = 0.95; break;
+            default: start = 0.95; end = 1.0;
+        }
+        return start + (end - start) * (total == 0 ? 1.0 : (double) done / total);
+    }
+
+    /**
+     * Shows the results of the stages that have finished so far.
+     */
+    private void displayPartialResults(AnalysisResult partial) {
+        tweetTable.refresh();
+        resultArea.setText(pipeline.formatResults(partial));
+    }
+
+    /**
+     * Displays the final analysis results in the TextArea.
+     */
+    private void displayResults(AnalysisResult result) {
+        String report = pipeline.formatResults(result);
+        resultArea.setText(report + "\n--- Stage Metrics ---\n" + pipeline.getMetrics().format());
     }
 }
@@ -0,0 +1,75 @@
+package com.example.toxictweet;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams tweet records out of a UTF-8 file through NIO memory mapping.
+ * Line and field boundaries are found directly in the mapped bytes; only the fields of each
+ * record are materialized, and each record is handed on before the next line is read.
+ */
+public class MappedTweetReader {
+    /** Largest region mapped at once; files bigger than this are mapped window by window. */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private MappedTweetReader() {
+    }
+
+    /**
+     * Reads every record of a tweet file in order.
+     * Records are line based: a newline always ends a record, even inside quoted text.
+     * @param file The tweet file, encoded as UTF-8.
+     * @param handler Receives each parsed record.
+     * @return The number of records handed to the handler.
+     */
+    public static long read(Path file, TweetLineParser.RecordHandler handler) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean first = true;
+            while (position < size) {
+                long windowSize = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int limit = (int) windowSize;
+
+                // Only complete lines are parsed; a partial last line starts the next window
+                if (position + windowSize < size) {
+                    int lastNewline = limit - 1;
+                    while (lastNewline >= 0 && buffer.get(lastNewline) != '\n') {
+                        lastNewline--;
+                    }
+                    if (lastNewline < 0) {
+                        throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + position);
+                    }
+                    limit = lastNewline + 1;
+                }
+
+                int start = 0;
+                if (first && limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF
+                        && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+                    start = 3; // Skip the UTF-8 byte order mark
+                }
+                first = false;
+
+                TweetLineParser.ByteSource line = new TweetLineParser.ByteSource(buffer);
+                while (start < limit) {
+                    int end = start;
+                    while (end < limit && buffer.get(end) != '\n') {
+                        end++;
+                    }
+                    line.reset(start, end - start);
+                    if (TweetLineParser.parse(line, handler)) {
+                        records++;
+                    }
+                    start = end + 1;
+                }
+                position += limit;
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures of character sets.
+ * Tweets whose signatures agree on every row of at least one band land in the same bucket,
+ * so only those candidate pairs need an exact Jaccard check.
+ */
+public class MinHashIndex {
+    public static final int DEFAULT_SIGNATURE_SIZE = 128;
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+
+    /**
+     * Creates an index whose banding is tuned so that pairs at the given similarity
+     * become candidates with at least 99% probability.
+     * @param threshold The Jaccard similarity threshold, between 0 and 1.
+     */
+    public MinHashIndex(double threshold) {
+        this(threshold, DEFAULT_SIGNATURE_SIZE);
+    }
+
+    public MinHashIndex(double threshold, int signatureSize) {
+        int bestRows = 1;
+        for (int r = 1; r <= signatureSize; r++) {
+            int b = signatureSize / r;
+            double recall = 1.0 - Math.pow(1.0 - Math.pow(threshold, r), b);
+            if (recall >= 0.99) {
+                bestRows = r; // More rows per band means fewer false candidates
+            }
+        }
+        this.rows = bestRows;
+        this.bands = signatureSize / bestRows;
+        this.seeds = new long[bands * rows];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+    }
+
+    public int getBands() { return bands; }
+    public int getRows() { return rows; }
+
+    /**
+     * Computes the MinHash signature of the set of distinct characters of a text.
+     */
+    public int[] signature(CharSequence text) {
+        return signature(CharFingerprint.of(text));
+    }
+
+    /**
+     * Computes the MinHash signature of a precomputed character set.
+     */
+    public int[] signature(CharFingerprint fingerprint) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        fingerprint.forEachChar(c -> addElement(signature, c));
+        return signature;
+    }
+
+    /**
+     * Folds one set element into a signature.
+     */
+    private void addElement(int[] signature, int element) {
+        for (int h = 0; h < seeds.length; h++) {
+            int value = (int) (mix(element ^ seeds[h]) >>> 33);
+            if (value < signature[h]) {
+                signature[h] = value;
+            }
+        }
+    }
+
+    /**
+     * Adds an item to every band bucket of its signature.
+     */
+    public void add(int id, int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), k -> new Bucket()).add(id);
+        }
+    }
+
+    /**
+     * Removes an item previously added with the same signature.
+     */
+    public void remove(int id, int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(id) && bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Reports the ids sharing at least one bucket with the signature.
+     * An id may be reported once per band it shares, so callers should de-duplicate.
+     */
+    public void forEachCandidate(int[] signature, IntConsumer consumer) {
+        for (int band = 0; band < bands; band++) {
+            Bucket bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null) {
+                for (int i = 0; i < bucket.size; i++) {
+                    consumer.accept(bucket.ids[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the bucket key of every band of a signature. Items that are added and removed again
+     * later can keep these few keys instead of the whole signature.
+     */
+    public long[] bandKeys(int[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            keys[band] = bandKey(signature, band);
+        }
+        return keys;
+    }
+
+    /**
+     * Adds an item to the buckets given by {@link #bandKeys}.
+     */
+    public void add(int id, long[] bandKeys) {
+        for (long key : bandKeys) {
+            buckets.computeIfAbsent(key, k -> new Bucket()).add(id);
+        }
+    }
+
+    /**
+     * Removes an item previously added with the same band keys.
+     */
+    public void remove(int id, long[] bandKeys) {
+        for (long key : bandKeys) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(id) && bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Reports the ids sharing at least one of the given band keys, once per shared band.
+     */
+    public void forEachCandidate(long[] bandKeys, IntConsumer consumer) {
+        for (long key : bandKeys) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null) {
+                for (int i = 0; i < bucket.size; i++) {
+                    consumer.accept(bucket.ids[i]);
+                }
+            }
+        }
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long hash = band;
+        int start = band * rows;
+        for (int r = start; r < start + rows; r++) {
+            hash = mix(hash * 31 + signature[r]);
+        }
+        return hash;
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * A growable list of ids sharing one band hash.
+     */
+    private static final class Bucket {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.toxictweet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Read-only list view of the tweets of an indexed file that materializes only the pages being read.
+ * <p>
+ * Recently used pages are kept in a small LRU cache, so a table scrolling through the file keeps a
+ * bounded number of {@link Tweet} objects alive. Detection results live in a side table of two bits
+ * per record; the words and highlight spans of a toxic record are found again when its page is
+ * materialized, which only costs a scan of the rows on screen.
+ */
+public class PagedTweets extends AbstractList<Tweet> implements RandomAccess {
+    /** Pages kept in memory by default. */
+    public static final int DEFAULT_CACHED_PAGES = 64;
+
+    private final TweetFileIndex index;
+    private final int cachedPages;
+    private final Map<Integer, Tweet[]> pages; // Guarded by this
+    // Side table of detection results, guarded by this
+    private final BitSet detected = new BitSet();
+    private final BitSet toxic = new BitSet();
+    private ToxicMatcher matcher; // Matcher the side table was filled with, or null
+    private final TweetScanner scanner = new TweetScanner();
+
+    public PagedTweets(TweetFileIndex index) {
+        this(index, DEFAULT_CACHED_PAGES);
+    }
+
+    public PagedTweets(TweetFileIndex index, int cachedPages) {
+        this.index = index;
+        this.cachedPages = Math.max(1, cachedPages);
+        this.pages = new LinkedHashMap<Integer, Tweet[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Tweet[]> eldest) {
+                return size() > PagedTweets.this.cachedPages;
+            }
+        };
+    }
+
+    public TweetFileIndex getIndex() { return index; }
+
+    /**
+     * @return The number of records indexed so far; grows while the index is being built.
+     */
+    @Override
+    public int size() {
+        return index.recordCount();
+    }
+
+    /**
+     * @throws UncheckedIOException If the page holding the tweet cannot be read.
+     */
+    @Override
+    public Tweet get(int i) {
+        int size = size();
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + size);
+        }
+        int page = i / TweetFileIndex.PAGE_SIZE;
+        Tweet[] tweets;
+        synchronized (this) {
+            tweets = pages.get(page);
+        }
+        if (tweets == null) {
+            // Read outside the lock, so a detection pass streaming pages does not hold up the table
+            tweets = read(page).toArray(new Tweet[0]);
+            synchronized (this) {
+                applyResults(page, tweets);
+                pages.put(page, tweets);
+            }
+        }
+        return tweets[i % TweetFileIndex.PAGE_SIZE];
+    }
+
+    /**
+     * @return The number of pages indexed so far.
+     */
+    public int pageCount() {
+        return (size() + TweetFileIndex.PAGE_SIZE - 1) / TweetFileIndex.PAGE_SIZE;
+    }
+
+    /**
+     * Reads fresh tweets of one page, without caching them or applying detection results,
+     * for a stage that streams through the whole file.
+     * @throws UncheckedIOException If the page cannot be read.
+     */
+    public List<Tweet> readPage(int page) {
+        return read(page);
+    }
+
+    /**
+     * Starts a new detection pass: results recorded with another matcher are dropped.
+     */
+    public synchronized void beginDetection(ToxicMatcher matcher) {
+        if (matcher != this.matcher) {
+            this.matcher = matcher;
+            detected.clear();
+            toxic.clear();
+            pages.clear();
+        }
+    }
+
+    /**
+     * Records the detection results of a page read with {@link #readPage}.
+     * The cached copy of the page, if any, is dropped so it is materialized again with the results.
+     */
+    public synchronized void recordDetection(int page, List<Tweet> tweets) {
+        int first = page * TweetFileIndex.PAGE_SIZE;
+        for (int k = 0; k < tweets.size(); k++) {
+            detected.set(first + k);
+            toxic.set(first + k, tweets.get(k).isToxic());
+        }
+        pages.remove(page);
+    }
+
+    /**
+     * @return The number of tweets detected since the last {@link #beginDetection}.
+     */
+    public synchronized int detectedCount() { return detected.cardinality(); }
+
+    /**
+     * @return The number of toxic tweets among them.
+     */
+    public synchronized int toxicCount() { return toxic.cardinality(); }
+
+    private List<Tweet> read(int page) {
+        List<Tweet> tweets = new ArrayList<>(TweetFileIndex.PAGE_SIZE);
+        try {
+            index.readPage(page, (tweetId, userId, text, retweetOf) -> tweets.add(new Tweet(tweetId, userId, text)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tweets;
+    }
+
+    /**
+     * Gives the toxic tweets of a freshly read page their words and spans; caller holds the lock.
+     */
+    private void applyResults(int page, Tweet[] tweets) {
+        int first = page * TweetFileIndex.PAGE_SIZE;
+        for (int k = 0; k < tweets.length; k++) {
+            if (toxic.get(first + k)) {
+                Tweet tweet = tweets[k];
+                Set<String> found = scanner.scan(tweet.getOriginalText(), matcher);
+                tweet.setToxic(!found.isEmpty());
+                tweet.setToxicWords(found);
+                tweet.setToxicSpans(scanner.spans());
+            }
+        }
+    }
+}
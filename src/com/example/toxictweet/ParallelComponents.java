@@ -0,0 +1,241 @@
+package com.example.toxictweet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Connected components of a {@link UserGraph}, computed on a fork-join pool with a lock-free union-find.
+ * <p>
+ * Workers split the CSR edge array into equal ranges, so a user with millions of retweets is
+ * shared between tasks instead of stalling one. A union always links the larger root below the
+ * smaller one with a compare-and-set, so the forest stays acyclic under races and every
+ * component ends up labelled with its smallest user index, whatever the thread interleaving.
+ */
+public class ParallelComponents {
+    /** Edges or users handled by one leaf task. */
+    static final int GRAIN = 1 << 14;
+
+    private ParallelComponents() {
+    }
+
+    /**
+     * Labels every user with its component.
+     * @return For each user index, the smallest user index in its component.
+     */
+    public static int[] compute(UserGraph graph, ForkJoinPool pool) {
+        int n = graph.userCount();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        int[] labels = new int[n];
+        pool.invoke(new InitTask(parent, 0, n));
+        pool.invoke(new UnionTask(parent, graph.outOffsets(), graph.outTargets(), 0, graph.edgeCount()));
+        pool.invoke(new LabelTask(parent, labels, 0, n));
+        return labels;
+    }
+
+    /**
+     * Finds the root of x, halving the path on the way. A failed halving CAS only means another
+     * thread already moved the pointer further up, so it is not retried.
+     */
+    static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int grandparent = parent.get(p);
+            if (grandparent != p) {
+                parent.compareAndSet(x, p, grandparent);
+            }
+            x = grandparent;
+        }
+    }
+
+    /**
+     * Merges the sets of a and b by linking the larger root below the smaller one.
+     */
+    static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            // Only a root may be linked; if a gained a parent meanwhile, start over from there
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    private static final class InitTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent;
+        private final int from;
+        private final int to;
+
+        InitTask(AtomicIntegerArray parent, int from, int to) {
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                for (int u = from; u < to; u++) {
+                    parent.set(u, u);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new InitTask(parent, from, mid), new InitTask(parent, mid, to));
+        }
+    }
+
+    /**
+     * Unions the endpoints of the edges [from, to) of the CSR arrays.
+     */
+    private static final class UnionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int from;
+        private final int to;
+
+        UnionTask(AtomicIntegerArray parent, int[] offsets, int[] targets, int from, int to) {
+            this.parent = parent;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                int u = sourceOf(from);
+                for (int k = from; k < to; k++) {
+                    while (offsets[u + 1] <= k) {
+                        u++;
+                    }
+                    union(parent, u, targets[k]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new UnionTask(parent, offsets, targets, from, mid),
+                      new UnionTask(parent, offsets, targets, mid, to));
+        }
+
+        /**
+         * @return The user whose out-edges contain edge k.
+         */
+        private int sourceOf(int k) {
+            int lo = 0;
+            int hi = offsets.length - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= k) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static final class LabelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent;
+        private final int[] labels;
+        private final int from;
+        private final int to;
+
+        LabelTask(AtomicIntegerArray parent, int[] labels, int from, int to) {
+            this.parent = parent;
+            this.labels = labels;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                for (int u = from; u < to; u++) {
+                    labels[u] = find(parent, u);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new LabelTask(parent, labels, from, mid), new LabelTask(parent, labels, mid, to));
+        }
+    }
+
+    /**
+     * Cross-checks the parallel clusters against the sequential implementations: they must equal the
+     * union-find clusters, and every cluster of the directed DFS must lie inside one of them.
+     * @return A description of each mismatch; empty if the results agree.
+     */
+    public static List<String> crossCheck(UserGraph graph, List<Tweet> toxicTweets, ForkJoinPool pool) {
+        List<String> problems = new ArrayList<>();
+        GraphAnalyzer parallel = new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.PARALLEL);
+        parallel.setPool(pool);
+        List<Set<String>> parallelClusters = parallel.findToxicClusters(toxicTweets);
+        List<Set<String>> sequentialClusters =
+                new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.UNION_FIND).findToxicClusters(toxicTweets);
+        List<Set<String>> dfsClusters =
+                new GraphAnalyzer(graph, GraphAnalyzer.ClusteringMode.DFS).findToxicClusters(toxicTweets);
+
+        Set<Set<String>> expected = new HashSet<>(sequentialClusters);
+        Set<Set<String>> actual = new HashSet<>(parallelClusters);
+        if (parallelClusters.size() != sequentialClusters.size()) {
+            problems.add("Parallel found " + parallelClusters.size() + " clusters, union-find "
+                    + sequentialClusters.size());
+        }
+        for (Set<String> cluster : sequentialClusters) {
+            if (!actual.contains(cluster)) {
+                problems.add("Union-find cluster of " + cluster.size() + " users missing from the parallel result, e.g. "
+                        + cluster.iterator().next());
+            }
+        }
+        for (Set<String> cluster : parallelClusters) {
+            if (!expected.contains(cluster)) {
+                problems.add("Parallel cluster of " + cluster.size() + " users not found by union-find, e.g. "
+                        + cluster.iterator().next());
+            }
+        }
+
+        Map<String, Set<String>> clusterOfUser = new HashMap<>();
+        for (Set<String> cluster : parallelClusters) {
+            for (String user : cluster) {
+                clusterOfUser.put(user, cluster);
+            }
+        }
+        for (Set<String> cluster : dfsClusters) {
+            String first = cluster.iterator().next();
+            Set<String> component = clusterOfUser.get(first);
+            if (component == null || !component.containsAll(cluster)) {
+                problems.add("DFS cluster of " + cluster.size() + " users starting near " + first
+                        + " is not inside one parallel component");
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.toxictweet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs toxic detection over a range of tweets on a fork-join pool.
+ * Workers only read the tweets and write unmodifiable results into their own slots of the
+ * result arrays; the tweets are updated afterwards in one step by {@link #publish}.
+ */
+public class ParallelDetector {
+    /** Tweets handled by one leaf task before it stops splitting. */
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    private final ToxicMatcher matcher;
+    private final DetectionCache cache; // Shared by all workers, or null
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public ParallelDetector(ToxicMatcher matcher, ForkJoinPool pool) {
+        this(matcher, null, pool, DEFAULT_BATCH_SIZE);
+    }
+
+    public ParallelDetector(ToxicMatcher matcher, DetectionCache cache, ForkJoinPool pool) {
+        this(matcher, cache, pool, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param cache Detection results shared with other detectors for repeated texts, or null.
+     */
+    public ParallelDetector(ToxicMatcher matcher, DetectionCache cache, ForkJoinPool pool, int batchSize) {
+        this.matcher = matcher;
+        this.cache = cache;
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * The detection results of a range of tweets, indexed from the start of the range.
+     */
+    public static final class Batch {
+        private final List<Set<String>> words; // Filled slot by slot; never resized
+        private final int[][] spans;
+
+        private Batch(int size) {
+            this.words = new ArrayList<>(Collections.nCopies(size, null));
+            this.spans = new int[size][];
+        }
+
+        public int size() { return spans.length; }
+
+        /**
+         * @return The toxic words found in a tweet; an empty set for clean tweets.
+         */
+        public Set<String> words(int i) { return words.get(i); }
+
+        /**
+         * @return The highlight spans of a tweet, see {@link Tweet#getToxicSpans()}.
+         */
+        public int[] spans(int i) { return spans[i]; }
+
+        public List<Set<String>> wordList() { return Collections.unmodifiableList(words); }
+    }
+
+    /**
+     * Detects toxic words in tweets [from, to) without modifying them.
+     * Workers stop early when the calling thread is interrupted.
+     * @throws CancellationException If the calling thread was interrupted.
+     */
+    public Batch detect(List<Tweet> tweets, int from, int to) {
+        Batch results = new Batch(to - from);
+        Thread caller = Thread.currentThread();
+        pool.invoke(new DetectTask(tweets, results, caller, from, from, to));
+        if (caller.isInterrupted()) {
+            throw new CancellationException("Detection cancelled"); // Some slots may be unfilled
+        }
+        return results;
+    }
+
+    /**
+     * Writes detection results back onto the tweets they were computed for.
+     */
+    public static void publish(List<Tweet> tweets, int from, Batch results) {
+        for (int i = 0; i < results.size(); i++) {
+            Tweet tweet = tweets.get(from + i);
+            Set<String> found = results.words(i);
+            tweet.setToxic(!found.isEmpty());
+            tweet.setToxicWords(found);
+            tweet.setToxicSpans(results.spans(i));
+        }
+    }
+
+    /**
+     * Splits the range in halves until it is small enough to scan directly.
+     */
+    private final class DetectTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Tweet> tweets;
+        private final Batch results;
+        private final Thread caller; // Cancellation is signalled by interrupting the submitting thread
+        private final int base;
+        private final int from;
+        private final int to;
+
+        DetectTask(List<Tweet> tweets, Batch results, Thread caller, int base, int from, int to) {
+            this.tweets = tweets;
+            this.results = results;
+            this.caller = caller;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (caller.isInterrupted()) {
+                return;
+            }
+            if (to - from <= batchSize) {
+                TweetScanner scanner = new TweetScanner(cache); // One per leaf, reused for all its tweets
+                for (int i = from; i < to; i++) {
+                    results.words.set(i - base, scanner.scan(tweets.get(i).getOriginalText(), matcher));
+                    results.spans[i - base] = scanner.spans();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DetectTask(tweets, results, caller, base, from, mid),
+                      new DetectTask(tweets, results, caller, base, mid, to));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.toxictweet;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records wall time, allocation and named counters per pipeline stage.
+ * Repeated runs of a stage (e.g. detection on every streamed batch) add up until {@link #reset()}.
+ * <p>
+ * Allocation is an estimate: the bytes allocated by all live threads between the start and the end
+ * of the stage, as reported by the HotSpot thread MXBean, or -1 where that is not available.
+ * It includes other threads allocating at the same time.
+ */
+public class PipelineMetrics {
+    // Stage names used by the pipeline
+    public static final String INGEST = "ingest";
+    public static final String DETECTION = "detection";
+    public static final String SIMILARITY = "similarity";
+    public static final String CLUSTERING = "clustering";
+    public static final String SOURCES = "sources";
+    public static final String REPORT = "report";
+
+    // Counter names used by the pipeline
+    public static final String ITEMS = "items";
+    public static final String MATCHES = "matches";
+    public static final String TOXIC = "toxic";
+    public static final String COMPARISONS = "comparisons";
+    public static final String GROUPS = "groups";
+    public static final String NODES_VISITED = "nodesVisited";
+    public static final String EDGES_VISITED = "edgesVisited";
+    public static final String CLUSTERS = "clusters";
+    public static final String CACHE_HITS = "cacheHits";
+    public static final String CACHE_MISSES = "cacheMisses";
+    public static final String CACHE_EVICTIONS = "cacheEvictions";
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * Accumulated measurements of one stage.
+     */
+    public static final class Stage {
+        private final String name;
+        private int runs;
+        private long wallNanos;
+        private long allocatedBytes;
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public int getRuns() { return runs; }
+        public long getWallNanos() { return wallNanos; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public Map<String, Long> getCounters() { return counters; }
+
+        /**
+         * @return The value of a counter, or 0 if it was never recorded.
+         */
+        public long getCounter(String counter) {
+            return counters.getOrDefault(counter, 0L);
+        }
+    }
+
+    /**
+     * Measures one run of a stage; close it when the stage ends, typically with try-with-resources.
+     */
+    public final class Timer implements AutoCloseable {
+        private final String stage;
+        private final long startNanos;
+        private final long startAllocated;
+
+        private Timer(String stage) {
+            this.stage = stage;
+            this.startAllocated = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds to a counter of the stage being measured.
+         */
+        public void count(String counter, long delta) {
+            PipelineMetrics.this.count(stage, counter, delta);
+        }
+
+        @Override
+        public void close() {
+            long wall = System.nanoTime() - startNanos;
+            long allocated = startAllocated < 0 ? -1 : Math.max(0, allocatedBytes() - startAllocated);
+            synchronized (PipelineMetrics.this) {
+                Stage s = stage(stage);
+                s.runs++;
+                s.wallNanos += wall;
+                s.allocatedBytes = allocated < 0 || s.allocatedBytes < 0 ? -1 : s.allocatedBytes + allocated;
+            }
+        }
+    }
+
+    /**
+     * Starts measuring a run of the named stage.
+     */
+    public Timer start(String stage) {
+        return new Timer(stage);
+    }
+
+    /**
+     * Adds to a counter of a stage.
+     */
+    public synchronized void count(String stage, String counter, long delta) {
+        stage(stage).counters.merge(counter, delta, Long::sum);
+    }
+
+    /**
+     * @return The named stage, or null if it never ran.
+     */
+    public synchronized Stage getStage(String name) {
+        return stages.get(name);
+    }
+
+    /**
+     * @return All stages in the order they first ran.
+     */
+    public synchronized List<Stage> getStages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    public synchronized void reset() {
+        stages.clear();
+    }
+
+    private Stage stage(String name) {
+        return stages.computeIfAbsent(name, Stage::new);
+    }
+
+    /**
+     * Writes every stage as a JSON object keyed by stage name.
+     */
+    public synchronized void writeJson(JsonWriter json) throws IOException {
+        json.beginObject();
+        for (Stage stage : stages.values()) {
+            json.name(stage.name).beginObject();
+            json.name("runs").value(stage.runs);
+            json.name("wallMillis").value(stage.wallNanos / 1e6);
+            json.name("allocatedBytes").value(stage.allocatedBytes);
+            for (Map.Entry<String, Long> counter : stage.counters.entrySet()) {
+                json.name(counter.getKey()).value(counter.getValue());
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    /**
+     * Formats one line per stage for the report.
+     */
+    public synchronized String format() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : stages.values()) {
+            sb.append(String.format("%-11s %9.1f ms", stage.name, stage.wallNanos / 1e6));
+            if (stage.allocatedBytes >= 0) {
+                sb.append(String.format(", %.1f MB allocated", stage.allocatedBytes / (1024.0 * 1024.0)));
+            }
+            for (Map.Entry<String, Long> counter : stage.counters.entrySet()) {
+                sb.append(", ").append(counter.getKey()).append('=').append(counter.getValue());
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The bytes allocated so far by all live threads, or -1 if not supported.
+     */
+    private static long allocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot;
+            }
+        }
+        return null;
+    }
+}
@@ -6,8 +6,9 @@ import java.util.Set;
 
 /**
  * Implements the Rabin-Karp algorithm for finding multiple patterns (toxic words) in a text.
+ * Kept as a fallback for {@link AhoCorasick}; select it with {@code -Dtoxic.matcher=rabin-karp}.
  */
-public class RabinKarp {
+public class RabinKarp implements ToxicMatcher {
     private final List<String> patterns;
     private final int prime = 101; // A prime number for hashing
 
@@ -20,6 +21,7 @@ public class RabinKarp {
      * @param text The text to search within.
      * @return A set of toxic words found in the text.
      */
+    @Override
     public Set<String> search(String text) {
         Set<String> foundPatterns = new HashSet<>();
         int n = text.length();
@@ -0,0 +1,245 @@
+package com.example.toxictweet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for the {@link ScoringServer}: replays tweets over several connections and reports
+ * the latency percentiles and the throughput.
+ * <p>
+ * Each connection keeps up to a fixed number of requests in flight, sending them in one write and then
+ * reading their replies, so a pipeline of 1 measures the round trip of a lone request and larger
+ * pipelines exercise the server's batching. A request's latency runs from the write that sent it to
+ * the arrival of its reply.
+ *
+ * <pre>
+ * java -cp out com.example.toxictweet.ScoringLoadClient [options]
+ *   --host HOST            server host (default: 127.0.0.1)
+ *   --port N               server port (default: 7878)
+ *   --connections N        concurrent connections (default: 8)
+ *   --requests N           requests per connection (default: 10000)
+ *   --pipeline K           requests in flight per connection (default: 1)
+ *   --warmup N             requests per connection sent before measuring (default: 1000)
+ *   --input FILE           tweet file to replay (default: a generated corpus)
+ * </pre>
+ */
+public class ScoringLoadClient {
+    private final String host;
+    private final int port;
+    private final List<String> lines;
+
+    /**
+     * @param lines The tweet lines to send; each connection cycles through them from its own offset.
+     */
+    public ScoringLoadClient(String host, int port, List<String> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("No tweets to send");
+        }
+        this.host = host;
+        this.port = port;
+        this.lines = lines;
+    }
+
+    /**
+     * Latencies of a run, sorted, and its duration.
+     */
+    public static final class Report {
+        private final long[] latencies;
+        private final long elapsedNanos;
+
+        Report(long[] latencies, long elapsedNanos) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @param p The percentile, from 0 to 100.
+         * @return The latency in nanoseconds that p percent of the requests did not exceed.
+         */
+        public long percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100 * latencies.length);
+            return latencies[Math.max(0, Math.min(latencies.length, rank) - 1)];
+        }
+
+        public int getRequestCount() { return latencies.length; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : latencies.length * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Runs the connections concurrently and collects the latencies of all measured requests.
+     */
+    public Report run(int connections, int requests, int pipeline, int warmup)
+            throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < connections; c++) {
+                int offset = (int) ((long) c * lines.size() / connections);
+                futures.add(pool.submit(() -> runConnection(offset, requests, pipeline, warmup)));
+            }
+            long[][] results = new long[connections][];
+            int total = 0;
+            for (int c = 0; c < connections; c++) {
+                results[c] = futures.get(c).get();
+                total += results[c].length;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            long[] all = new long[total];
+            int fill = 0;
+            for (long[] result : results) {
+                System.arraycopy(result, 0, all, fill, result.length);
+                fill += result.length;
+            }
+            Arrays.sort(all);
+            return new Report(all, elapsed);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends warm-up and measured requests over one connection.
+     * @return The latency of each measured request in nanoseconds.
+     */
+    private long[] runConnection(int offset, int requests, int pipeline, int warmup) throws IOException {
+        long[] latencies = new long[requests];
+        long[] sent = new long[pipeline];
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            int next = offset;
+            for (int done = -warmup; done < requests; ) {
+                int window = Math.min(pipeline, requests - done);
+                long now = System.nanoTime();
+                for (int k = 0; k < window; k++) {
+                    out.write(lines.get(next));
+                    out.write('\n');
+                    next = (next + 1) % lines.size();
+                    sent[k] = now;
+                }
+                out.flush();
+                for (int k = 0; k < window; k++) {
+                    String reply = in.readLine();
+                    if (reply == null) {
+                        throw new IOException("Server closed the connection");
+                    }
+                    long latency = System.nanoTime() - sent[k];
+                    if (done >= 0) {
+                        latencies[done] = latency;
+                    }
+                    done++;
+                }
+            }
+        }
+        return latencies;
+    }
+
+    public static void main(String[] args) {
+        String host = "127.0.0.1";
+        int port = ScoringServer.DEFAULT_PORT;
+        int connections = 8;
+        int requests = 10_000;
+        int pipeline = 1;
+        int warmup = 1000;
+        String input = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host": host = requireValue(args, ++i); break;
+                    case "--port": port = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--connections": connections = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--requests": requests = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--pipeline": pipeline = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--warmup": warmup = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--input": input = requireValue(args, ++i); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (connections < 1 || requests < 1 || pipeline < 1 || warmup < 0) {
+                throw new IllegalArgumentException("Counts must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ScoringLoadClient [--host HOST] [--port N] [--connections N] "
+                    + "[--requests N] [--pipeline K] [--warmup N] [--input FILE]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            List<String> lines = input != null
+                    ? Files.readAllLines(Paths.get(input), StandardCharsets.UTF_8)
+                    : generateLines(Math.min(100_000, connections * (requests + warmup)));
+            ScoringLoadClient client = new ScoringLoadClient(host, port, lines);
+            Report report = client.run(connections, requests, pipeline, warmup);
+            System.out.printf("Requests: %d over %d connections, pipeline %d%n",
+                    report.getRequestCount(), connections, pipeline);
+            System.out.printf("Latency p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                    report.percentile(50) / 1e6, report.percentile(90) / 1e6,
+                    report.percentile(99) / 1e6, report.percentile(100) / 1e6);
+            System.out.printf("Throughput: %.0f requests/s%n", report.getThroughput());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Generates a corpus in memory, using the default lexicon file if there is one.
+     */
+    private static List<String> generateLines(int count) throws IOException {
+        CorpusGenerator generator = new CorpusGenerator();
+        generator.setTweetCount(count);
+        File lexicon = new File("toxic_words.txt");
+        if (lexicon.exists()) {
+            generator.loadToxicWords(lexicon);
+        }
+        StringWriter buffer = new StringWriter();
+        generator.generate(buffer);
+        return Arrays.asList(buffer.toString().split("\n"));
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.toxictweet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded scoring service that returns a verdict for each tweet sent to it over a local socket.
+ * <p>
+ * The protocol is line based: a client sends tweets as {@code tweetId,userId,text} lines, the format of
+ * the tweet files, and receives one JSON line per tweet, in order, with the matched toxic words, their
+ * spans and a near-duplicate hint from a {@link StreamingSimilarity} window shared by all connections.
+ * Each connection is handled on its own virtual thread where the JDK has them, or a pooled thread otherwise,
+ * with its own {@link TweetScanner}; all connections share one compiled matcher and one {@link DetectionCache}.
+ * A lexicon change replaces both together, so no verdict of the old lexicon is served after the swap.
+ * Tweets that a client has already sent are scored together and answered with a single flush,
+ * so a pipelining client gets batching without waiting for a batch to fill.
+ *
+ * <pre>
+ * java -cp out com.example.toxictweet.ScoringServer [options]
+ *   --port N               port to listen on, on the loopback address (default: 7878)
+ *   --lexicon FILE         toxic word list, reloaded when it changes (default: toxic_words.txt)
+ *   --matcher NAME         aho-corasick or rabin-karp
+ *   --window N             tweets kept for the near-duplicate hint (default: 100000)
+ *   --window-minutes M     also forget tweets older than M minutes (default: no time limit)
+ *   --threshold P          near-duplicate similarity threshold in percent (default: 80)
+ *   --max-batch N          most tweets scored per batch (default: 64)
+ * </pre>
+ */
+public class ScoringServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7878;
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final AtomicReference<Scoring> scoring = new AtomicReference<>(); // Replaced on every lexicon change
+    private final StreamingSimilarity similarity; // Guarded by windowLock; null for no near-duplicate hint
+    // A lock rather than a monitor, so a virtual thread waiting for the window does not pin its carrier
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private int maxBatch = DEFAULT_MAX_BATCH;
+
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private boolean virtualThreads;
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    // Statistics
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * A server that scores with a fixed matcher.
+     * @param similarity The window for near-duplicate hints, or null for none.
+     */
+    public ScoringServer(ToxicMatcher matcher, StreamingSimilarity similarity) {
+        this.scoring.set(new Scoring(matcher));
+        this.similarity = similarity;
+    }
+
+    /**
+     * A server that scores with the current matcher of a started lexicon manager, so lexicon changes
+     * take effect from the next batch.
+     * @param similarity The window for near-duplicate hints, or null for none.
+     */
+    public ScoringServer(LexiconManager lexicon, StreamingSimilarity similarity) {
+        this.similarity = similarity;
+        // Listen first, so a swap during construction is not missed; it then wins over the initial lexicon
+        lexicon.addListener(current -> scoring.set(new Scoring(current.getMatcher())));
+        scoring.compareAndSet(null, new Scoring(lexicon.current().getMatcher()));
+    }
+
+    /**
+     * A matcher and the detection results computed with it. Batches still scanning with an older
+     * matcher only fill that version's cache, which is dropped with it.
+     */
+    private static final class Scoring {
+        private final ToxicMatcher matcher;
+        private final DetectionCache cache = new DetectionCache();
+
+        Scoring(ToxicMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    public void setMaxBatch(int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch must hold at least one tweet: " + maxBatch);
+        }
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Starts listening on the loopback address.
+     * @param port The port, or 0 for any free port.
+     */
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        executor = newConnectionExecutor();
+        acceptor = new Thread(this::acceptLoop, "scoring-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return true if connections run on virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Creates a virtual thread per connection on JDK 21 and later. The project still builds for JDK 11,
+     * so the factory method is looked up reflectively; older JDKs get a cached pool of daemon threads.
+     */
+    private ExecutorService newConnectionExecutor() {
+        try {
+            ExecutorService virtual =
+                    (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtualThreads = true;
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "scoring-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+                return;
+            }
+            connections.increment();
+            try {
+                executor.execute(() -> serve(socket));
+            } catch (RuntimeException e) {
+                closeQuietly(socket); // Rejected while closing
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until the client closes it.
+     */
+    private void serve(Socket socket) {
+        Scoring version = null;  // The lexicon version the scanner caches for
+        TweetScanner scanner = null;
+        List<Request> batch = new ArrayList<>(maxBatch);
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                // Take whatever else the client has already sent, up to a full batch
+                batch.add(new Request(line));
+                while (batch.size() < maxBatch && in.ready() && (line = in.readLine()) != null) {
+                    batch.add(new Request(line));
+                }
+                Scoring current = scoring.get();
+                if (current != version) {
+                    version = current;
+                    scanner = new TweetScanner(current.cache);
+                }
+                score(batch, current.matcher, scanner);
+                for (Request request : batch) {
+                    request.write(out);
+                }
+                out.flush();
+                requests.add(batch.size());
+                batches.increment();
+                batch.clear();
+            }
+        } catch (SocketException e) {
+            // Client went away
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Scores a batch with one matcher, then adds its tweets to the near-duplicate window under one lock.
+     */
+    private void score(List<Request> batch, ToxicMatcher matcher, TweetScanner scanner) {
+        for (Request request : batch) {
+            if (request.tweet != null) {
+                request.words = scanner.scan(request.tweet.getOriginalText(), matcher);
+                request.spans = scanner.spans();
+            } else {
+                errors.increment();
+            }
+        }
+        if (similarity == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        windowLock.lock();
+        try {
+            for (Request request : batch) {
+                if (request.tweet != null) {
+                    StreamingSimilarity.Group group = similarity.offer(request.tweet, now);
+                    if (group.size() > 1) {
+                        request.groupSize = group.size();
+                        request.duplicateOf = group.getRepresentative().getTweetId();
+                    }
+                }
+            }
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (serverSocket != null) {
+            serverSocket.close(); // Ends the accept loop
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to do
+        }
+    }
+
+    // Getters
+    public long getConnectionCount() { return connections.sum(); }
+    public long getRequestCount() { return requests.sum(); }
+    public long getBatchCount() { return batches.sum(); }
+    public long getErrorCount() { return errors.sum(); }
+    /** @return The detection cache of the current lexicon. */
+    public DetectionCache getCache() { return scoring.get().cache; }
+
+    /**
+     * One line of a batch and, once scored, its verdict.
+     */
+    private static final class Request implements TweetLineParser.RecordHandler {
+        private final String line;
+        private Tweet tweet; // Null if the line is not a tweet
+        private Set<String> words;
+        private int[] spans;
+        private String duplicateOf;
+        private int groupSize; // 0 unless the tweet has a near-duplicate in the window
+
+        Request(String line) {
+            this.line = line;
+            TweetLineParser.parse(line, this);
+        }
+
+        @Override
+        public void onTweet(String tweetId, String userId, String text, String retweetOf) {
+            tweet = new Tweet(tweetId, userId, text);
+        }
+
+        void write(Writer out) throws IOException {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            if (tweet == null) {
+                json.name("error").value("Expected tweetId,userId,text but got: " + line);
+            } else {
+                json.name("tweetId").value(tweet.getTweetId());
+                json.name("toxic").value(!words.isEmpty());
+                json.name("words").beginArray();
+                for (String word : words) {
+                    json.value(word);
+                }
+                json.endArray();
+                json.name("spans").beginArray();
+                for (int span : spans) {
+                    json.value(span);
+                }
+                json.endArray();
+                if (groupSize > 1) {
+                    json.name("nearDuplicateOf").value(duplicateOf);
+                    json.name("groupSize").value(groupSize);
+                }
+            }
+            json.endObject();
+            out.write('\n');
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String lexiconFile = "toxic_words.txt";
+        String algorithm = System.getProperty(ToxicMatcher.ALGORITHM_PROPERTY, "aho-corasick");
+        int window = 100_000;
+        long windowMinutes = 0;
+        double threshold = 80;
+        int maxBatch = DEFAULT_MAX_BATCH;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port": port = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--lexicon": lexiconFile = requireValue(args, ++i); break;
+                    case "--matcher": algorithm = requireValue(args, ++i); break;
+                    case "--window": window = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--window-minutes": windowMinutes = Long.parseLong(requireValue(args, ++i)); break;
+                    case "--threshold": threshold = Double.parseDouble(requireValue(args, ++i)); break;
+                    case "--max-batch": maxBatch = Integer.parseInt(requireValue(args, ++i)); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ScoringServer [--port N] [--lexicon FILE] [--matcher NAME] [--window N] "
+                    + "[--window-minutes M] [--threshold P] [--max-batch N]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            LexiconManager lexicon = new LexiconManager(Paths.get(lexiconFile), algorithm);
+            lexicon.start();
+            StreamingSimilarity similarity = window > 0
+                    ? new StreamingSimilarity(threshold, window, TimeUnit.MINUTES.toMillis(windowMinutes))
+                    : null;
+            ScoringServer server = new ScoringServer(lexicon, similarity);
+            server.setMaxBatch(maxBatch);
+            server.start(port);
+            System.err.println("Scoring on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                    + server.getPort() + " with " + lexicon.current().getWords().size() + " toxic words, "
+                    + (server.isVirtualThreads() ? "virtual" : "platform") + " threads");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                    lexicon.close();
+                } catch (IOException e) {
+                    // Exiting anyway
+                }
+                System.err.println("Connections: " + server.getConnectionCount()
+                        + ", requests: " + server.getRequestCount()
+                        + ", batches: " + server.getBatchCount()
+                        + ", errors: " + server.getErrorCount());
+            }));
+            server.acceptor.join();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.toxictweet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One partition of a {@link ShardedAnalysis}, run as a separate process that the coordinator talks to
+ * over its standard input and output.
+ * <p>
+ * A worker holds the tweets of the users whose ID hashes to its shard, together with their retweet
+ * edges, so every edge lives in the shard of the retweeting user. It runs detection and labels the
+ * connected components of its local graph with {@link GraphAnalyzer}. Users of other shards appear
+ * in the local graph only as retweet sources; the worker reports them per component so the
+ * coordinator can join components across shards, and answers which component its own users are in.
+ * <p>
+ * The protocol is a sequence of binary commands, each answered in order:
+ * <pre>
+ * TWEET    sequence, tweetId, userId, text, retweetOf or ""   (no reply)
+ * ANALYZE  -> counts, toxic tweets with the component of their user, users of other shards with their component
+ * LOOKUP   userIds of this shard -> the component of each, or -1 if the user never appeared here
+ * MEMBERS  component, cluster pairs -> cluster, userId, in-degree, out-degree of each member
+ * QUIT
+ * </pre>
+ */
+public class ShardWorker {
+    static final int TWEET = 1;
+    static final int ANALYZE = 2;
+    static final int LOOKUP = 3;
+    static final int MEMBERS = 4;
+    static final int QUIT = 5;
+
+    private final int shard;
+    private final int shardCount;
+    private final AnalysisPipeline pipeline;
+    private GraphAnalyzer.ClusteringMode clusteringMode = GraphAnalyzer.ClusteringMode.UNION_FIND;
+    private long[] sequences = new long[1024]; // Position of each local tweet in the whole input
+    private UserGraph graph; // Set by ANALYZE
+    private int[] labels;
+
+    public ShardWorker(int shard, int shardCount, AnalysisPipeline pipeline) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard " + shard + " is not one of " + shardCount);
+        }
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.pipeline = pipeline;
+    }
+
+    public void setClusteringMode(GraphAnalyzer.ClusteringMode clusteringMode) {
+        this.clusteringMode = clusteringMode;
+    }
+
+    /**
+     * Answers commands until QUIT or the end of the input.
+     */
+    public void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            int command;
+            try {
+                command = in.readByte();
+            } catch (EOFException e) {
+                return; // Coordinator went away
+            }
+            switch (command) {
+                case TWEET: addTweet(in); break;
+                case ANALYZE: analyze(out); break;
+                case LOOKUP: lookup(in, out); break;
+                case MEMBERS: members(in, out); break;
+                case QUIT: return;
+                default: throw new IOException("Unknown shard command: " + command);
+            }
+            if (command != TWEET) {
+                out.flush();
+            }
+        }
+    }
+
+    private void addTweet(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        String tweetId = readString(in);
+        String userId = readString(in);
+        String text = readString(in);
+        String retweetOf = readString(in);
+        int index = pipeline.getTweets().size();
+        if (index == sequences.length) {
+            sequences = Arrays.copyOf(sequences, index * 2);
+        }
+        sequences[index] = sequence;
+        pipeline.addTweet(tweetId, userId, text, retweetOf.isEmpty() ? null : retweetOf);
+    }
+
+    /**
+     * Runs detection and local components, then reports what the coordinator needs to merge them.
+     */
+    private void analyze(DataOutputStream out) throws IOException {
+        pipeline.detectToxicTweets();
+        graph = pipeline.getUserGraph();
+        labels = new GraphAnalyzer(graph, clusteringMode).componentLabels();
+        int n = graph.userCount();
+        boolean[] owned = new boolean[n];
+        int ownedCount = 0;
+        for (int u = 0; u < n; u++) {
+            owned[u] = ShardedAnalysis.shardOf(graph.userId(u), shardCount) == shard;
+            ownedCount += owned[u] ? 1 : 0;
+        }
+
+        List<Tweet> tweets = pipeline.getTweets();
+        out.writeInt(tweets.size());
+        out.writeInt(ownedCount);
+        out.writeInt(graph.edgeCount());
+
+        // Toxic tweets in input order, with the component of their user
+        int toxicCount = 0;
+        for (int i = 0; i < tweets.size(); i++) {
+            toxicCount += tweets.get(i).isToxic() ? 1 : 0;
+        }
+        out.writeInt(toxicCount);
+        for (int i = 0; i < tweets.size(); i++) {
+            Tweet tweet = tweets.get(i);
+            if (!tweet.isToxic()) {
+                continue;
+            }
+            out.writeLong(sequences[i]);
+            out.writeInt(labels[graph.indexOf(tweet.getUserId())]);
+            writeString(out, tweet.getTweetId());
+            writeString(out, tweet.getUserId());
+            writeString(out, tweet.getOriginalText());
+            Set<String> words = tweet.getToxicWords();
+            out.writeInt(words.size());
+            for (String word : words) {
+                writeString(out, word);
+            }
+            int[] spans = tweet.getToxicSpans();
+            out.writeInt(spans.length);
+            for (int value : spans) {
+                out.writeInt(value);
+            }
+        }
+
+        // Retweet sources owned by other shards, which join this shard's components to theirs
+        out.writeInt(n - ownedCount);
+        for (int u = 0; u < n; u++) {
+            if (!owned[u]) {
+                out.writeInt(labels[u]);
+                writeString(out, graph.userId(u));
+            }
+        }
+    }
+
+    /**
+     * Reads all user IDs before answering, so a long request cannot fill both pipes at once.
+     */
+    private void lookup(DataInputStream in, DataOutputStream out) throws IOException {
+        int[] users = new int[in.readInt()];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = graph.indexOf(readString(in));
+        }
+        for (int u : users) {
+            out.writeInt(u >= 0 ? labels[u] : -1);
+        }
+    }
+
+    /**
+     * Lists the users of the requested components with their local degrees. Every retweet edge of a user
+     * is in the user's own shard, so the out-degree is complete and the in-degree is this shard's share.
+     */
+    private void members(DataInputStream in, DataOutputStream out) throws IOException {
+        int n = graph.userCount();
+        int[] clusterOf = new int[n];
+        Arrays.fill(clusterOf, -1);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int label = in.readInt();
+            clusterOf[label] = in.readInt();
+        }
+        int memberCount = 0;
+        for (int u = 0; u < n; u++) {
+            memberCount += clusterOf[labels[u]] >= 0 ? 1 : 0;
+        }
+        out.writeInt(memberCount);
+        int[] inOffsets = graph.inOffsets();
+        int[] inSources = graph.inSources();
+        int[] outOffsets = graph.outOffsets();
+        int[] outTargets = graph.outTargets();
+        for (int u = 0; u < n; u++) {
+            int cluster = clusterOf[labels[u]];
+            if (cluster < 0) {
+                continue;
+            }
+            int inDegree = 0;
+            for (int k = inOffsets[u]; k < inOffsets[u + 1]; k++) {
+                inDegree += inSources[k] != u ? 1 : 0;
+            }
+            int outDegree = 0;
+            for (int k = outOffsets[u]; k < outOffsets[u + 1]; k++) {
+                outDegree += outTargets[k] != u ? 1 : 0;
+            }
+            out.writeInt(cluster);
+            writeString(out, graph.userId(u));
+            out.writeInt(inDegree);
+            out.writeInt(outDegree);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Worker entry point, started by the coordinator:
+     * {@code ShardWorker --shard I --shards N [--lexicon FILE] [--matcher NAME] [--clustering MODE] [--threads N] [--columnar]}.
+     */
+    public static void main(String[] args) {
+        // Standard output carries the protocol; anything printed goes to standard error instead
+        PrintStream protocolOut = System.out;
+        System.setOut(System.err);
+
+        int shard = -1;
+        int shardCount = 0;
+        String lexicon = "toxic_words.txt";
+        AnalysisPipeline pipeline = new AnalysisPipeline();
+        GraphAnalyzer.ClusteringMode clusteringMode = GraphAnalyzer.ClusteringMode.UNION_FIND;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--shard": shard = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--shards": shardCount = Integer.parseInt(requireValue(args, ++i)); break;
+                    case "--lexicon": lexicon = requireValue(args, ++i); break;
+                    case "--matcher": pipeline.setMatcherAlgorithm(requireValue(args, ++i)); break;
+                    case "--clustering": clusteringMode = GraphAnalyzer.ClusteringMode.parse(requireValue(args, ++i)); break;
+                    case "--threads": pipeline.setParallelism(Integer.parseInt(requireValue(args, ++i))); break;
+                    case "--columnar": pipeline.setColumnarStorage(true); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            ShardWorker worker = new ShardWorker(shard, shardCount, pipeline);
+            worker.setClusteringMode(clusteringMode);
+            pipeline.loadToxicWords(new File(lexicon));
+            worker.serve(new DataInputStream(new BufferedInputStream(System.in, 1 << 16)),
+                    new DataOutputStream(new BufferedOutputStream(protocolOut, 1 << 16)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Shard " + shard + ": " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Shard " + shard + " failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.toxictweet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs the analysis across several {@link ShardWorker} processes for inputs whose tweets and user graph
+ * do not fit in one JVM.
+ * <p>
+ * The coordinator streams the input once and sends each tweet to the worker of its user, chosen by
+ * a hash of the user ID, so a worker holds its users' tweets and their outgoing retweet edges.
+ * Workers run detection and label their local connected components. The coordinator then joins
+ * components that share a user across shards: each worker names the users of other shards it has
+ * edges to, and the owning worker says which of its components they are in. The components that
+ * hold a toxic user are the toxic clusters, the same connected components the union-find mode finds
+ * in one JVM. Sources are ranked as by {@link SourceIndex}: within a component every edge of a member
+ * stays inside it, so in-degrees are the sum of the shards' shares and out-degrees come from the owner.
+ * <p>
+ * The coordinator only keeps the toxic tweets, the users linking shards and the members of the toxic
+ * clusters. Similar groups are not computed, as near-duplicates of different users fall in different shards.
+ */
+public class ShardedAnalysis {
+    private final int shardCount;
+    private Path lexicon = Paths.get("toxic_words.txt");
+    private String matcherAlgorithm;  // Worker default when null
+    private GraphAnalyzer.ClusteringMode clusteringMode = GraphAnalyzer.ClusteringMode.UNION_FIND;
+    private int workerThreads;
+    private boolean columnarStorage;
+    private final List<String> jvmOptions = new ArrayList<>();
+    private final PipelineMetrics metrics = new PipelineMetrics();
+
+    // Statistics of the last run
+    private long tweetCount;
+    private long userCount;
+    private long edgeCount;
+    private long crossShardRetweets;
+    private int boundaryUserCount;
+
+    public ShardedAnalysis(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Need at least one shard: " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.workerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / shardCount);
+    }
+
+    /**
+     * @return The shard of a user, the same in every JVM since it only depends on {@link String#hashCode()}.
+     */
+    public static int shardOf(String userId, int shardCount) {
+        int h = userId.hashCode() * 0x9E3779B9; // Spreads IDs that only differ in their last characters
+        return Math.floorMod(h ^ (h >>> 16), shardCount);
+    }
+
+    // Setters
+    public void setLexicon(Path lexicon) { this.lexicon = lexicon.toAbsolutePath(); }
+    public void setMatcherAlgorithm(String matcherAlgorithm) { this.matcherAlgorithm = matcherAlgorithm; }
+    public void setClusteringMode(GraphAnalyzer.ClusteringMode clusteringMode) { this.clusteringMode = clusteringMode; }
+    public void setColumnarStorage(boolean columnarStorage) { this.columnarStorage = columnarStorage; }
+
+    /**
+     * Sets the detection threads of each worker; by default the processors are split between the workers.
+     */
+    public void setWorkerThreads(int workerThreads) {
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("Workers need at least one thread: " + workerThreads);
+        }
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Adds an option for the worker JVMs, such as {@code -Xmx4g}.
+     */
+    public void addJvmOption(String option) {
+        jvmOptions.add(option);
+    }
+
+    // Getters
+    public int getShardCount() { return shardCount; }
+    public long getTweetCount() { return tweetCount; }
+    public long getUserCount() { return userCount; }
+    public long getEdgeCount() { return edgeCount; }
+    public PipelineMetrics getMetrics() { return metrics; }
+
+    /**
+     * @return The number of retweets in the last run whose source user is in another shard.
+     */
+    public long getCrossShardRetweets() { return crossShardRetweets; }
+
+    /**
+     * @return The number of distinct users in the last run that link a shard to another.
+     */
+    public int getBoundaryUserCount() { return boundaryUserCount; }
+
+    /**
+     * Starts the workers, analyzes the input files and stops the workers again.
+     * @return The toxic tweets in input order, the toxic clusters and their source candidates; no similar groups.
+     */
+    public AnalysisResult run(List<Path> inputs) throws IOException {
+        tweetCount = 0;
+        userCount = 0;
+        edgeCount = 0;
+        crossShardRetweets = 0;
+        boundaryUserCount = 0;
+        Worker[] workers = new Worker[shardCount];
+        try {
+            for (int s = 0; s < shardCount; s++) {
+                workers[s] = new Worker(s);
+            }
+            try {
+                ingest(workers, inputs);
+                AnalysisResult result = merge(workers);
+                for (Worker worker : workers) {
+                    worker.quit();
+                }
+                for (Worker worker : workers) {
+                    worker.awaitExit();
+                }
+                return result;
+            } catch (IOException | UncheckedIOException e) {
+                throw workerFailure(workers, e);
+            }
+        } finally {
+            for (Worker worker : workers) {
+                if (worker != null) {
+                    worker.process.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the input files to the workers, one tweet at a time.
+     */
+    private void ingest(Worker[] workers, List<Path> inputs) throws IOException {
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.INGEST)) {
+            long[] sequence = new long[1];
+            for (Path input : inputs) {
+                MappedTweetReader.read(input, (tweetId, userId, text, retweetOf) -> {
+                    int shard = shardOf(userId, shardCount);
+                    if (retweetOf != null && shardOf(retweetOf, shardCount) != shard) {
+                        crossShardRetweets++;
+                    }
+                    try {
+                        workers[shard].sendTweet(sequence[0]++, tweetId, userId, text, retweetOf);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            timer.count(PipelineMetrics.ITEMS, sequence[0]);
+        }
+    }
+
+    /**
+     * Has the workers analyze their shards, joins their components and ranks the sources of the toxic clusters.
+     */
+    private AnalysisResult merge(Worker[] workers) throws IOException {
+        Nodes nodes = new Nodes();
+        IntList unions = new IntList(); // Pairs of nodes to join
+        List<ToxicRecord> toxic = new ArrayList<>();
+
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.DETECTION)) {
+            for (Worker worker : workers) {
+                worker.send(ShardWorker.ANALYZE);
+            }
+            for (Worker worker : workers) {
+                DataInputStream in = worker.in;
+                tweetCount += in.readInt();
+                userCount += in.readInt();
+                edgeCount += in.readInt();
+                int toxicCount = in.readInt();
+                for (int i = 0; i < toxicCount; i++) {
+                    long sequence = in.readLong();
+                    int label = in.readInt();
+                    Tweet tweet = new Tweet(ShardWorker.readString(in), ShardWorker.readString(in), ShardWorker.readString(in));
+                    Set<String> words = new HashSet<>();
+                    for (int w = in.readInt(); w > 0; w--) {
+                        words.add(ShardWorker.readString(in));
+                    }
+                    int[] spans = new int[in.readInt()];
+                    for (int k = 0; k < spans.length; k++) {
+                        spans[k] = in.readInt();
+                    }
+                    tweet.setToxic(true);
+                    tweet.setToxicWords(Collections.unmodifiableSet(words));
+                    tweet.setToxicSpans(spans.length == 0 ? Tweet.NO_SPANS : spans);
+                    toxic.add(new ToxicRecord(sequence, nodes.component(worker.shard, label), tweet));
+                }
+                for (int r = in.readInt(); r > 0; r--) {
+                    int label = in.readInt();
+                    String userId = ShardWorker.readString(in);
+                    unions.add(nodes.component(worker.shard, label));
+                    unions.add(nodes.user(userId));
+                }
+            }
+            timer.count(PipelineMetrics.ITEMS, tweetCount);
+            timer.count(PipelineMetrics.TOXIC, toxic.size());
+        }
+        toxic.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+        List<Tweet> toxicTweets = new ArrayList<>(toxic.size());
+        for (ToxicRecord record : toxic) {
+            toxicTweets.add(record.tweet);
+        }
+        boundaryUserCount = nodes.users.size();
+
+        List<Set<String>> clusters = new ArrayList<>();
+        int[] clusterOfRoot;
+        UnionFind components;
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.CLUSTERING)) {
+            // Ask each owner which of its components its boundary users are in
+            List<List<String>> owned = new ArrayList<>();
+            for (int s = 0; s < shardCount; s++) {
+                owned.add(new ArrayList<>());
+            }
+            for (String userId : nodes.users.keySet()) {
+                owned.get(shardOf(userId, shardCount)).add(userId);
+            }
+            for (Worker worker : workers) {
+                worker.lookup(owned.get(worker.shard));
+            }
+            for (Worker worker : workers) {
+                for (String userId : owned.get(worker.shard)) {
+                    int label = worker.in.readInt();
+                    if (label < 0) {
+                        userCount++; // Only ever seen as a retweet source in other shards
+                    } else {
+                        unions.add(nodes.user(userId));
+                        unions.add(nodes.component(worker.shard, label));
+                    }
+                }
+            }
+
+            int nodeCount = nodes.count;
+            components = new UnionFind(nodeCount);
+            for (int k = 0; k < unions.size; k += 2) {
+                components.union(unions.values[k], unions.values[k + 1]);
+            }
+
+            // Clusters in the order their first toxic user is met, as in GraphAnalyzer
+            Map<String, Integer> nodeOfUser = new HashMap<>();
+            Set<String> toxicUsers = new HashSet<>();
+            for (ToxicRecord record : toxic) {
+                nodeOfUser.put(record.tweet.getUserId(), record.node);
+                toxicUsers.add(record.tweet.getUserId());
+            }
+            clusterOfRoot = new int[nodeCount];
+            Arrays.fill(clusterOfRoot, -1);
+            for (String userId : toxicUsers) {
+                int root = components.find(nodeOfUser.get(userId));
+                if (clusterOfRoot[root] < 0) {
+                    clusterOfRoot[root] = clusters.size();
+                    clusters.add(new HashSet<>());
+                }
+            }
+            timer.count(PipelineMetrics.ITEMS, toxicTweets.size());
+            timer.count(PipelineMetrics.NODES_VISITED, nodeCount);
+            timer.count(PipelineMetrics.EDGES_VISITED, unions.size / 2);
+            timer.count(PipelineMetrics.CLUSTERS, clusters.size());
+        }
+
+        List<List<String>> sourceCandidates = new ArrayList<>();
+        try (PipelineMetrics.Timer timer = metrics.start(PipelineMetrics.SOURCES)) {
+            // Collect the members of every local component in a toxic cluster, with their degrees
+            List<List<int[]>> requests = new ArrayList<>();
+            for (int s = 0; s < shardCount; s++) {
+                requests.add(new ArrayList<>());
+            }
+            for (Map.Entry<Long, Integer> entry : nodes.components.entrySet()) {
+                int cluster = clusterOfRoot[components.find(entry.getValue())];
+                if (cluster >= 0) {
+                    long key = entry.getKey();
+                    requests.get((int) (key >>> 32)).add(new int[] {(int) key, cluster});
+                }
+            }
+            for (Worker worker : workers) {
+                worker.members(requests.get(worker.shard));
+            }
+            List<Map<String, int[]>> degrees = new ArrayList<>();
+            for (int c = 0; c < clusters.size(); c++) {
+                degrees.add(new HashMap<>());
+            }
+            for (Worker worker : workers) {
+                DataInputStream in = worker.in;
+                for (int m = in.readInt(); m > 0; m--) {
+                    int cluster = in.readInt();
+                    String userId = ShardWorker.readString(in);
+                    int[] degree = degrees.get(cluster).computeIfAbsent(userId, id -> new int[2]);
+                    degree[0] += in.readInt();
+                    degree[1] += in.readInt();
+                }
+            }
+            for (int c = 0; c < clusters.size(); c++) {
+                clusters.get(c).addAll(degrees.get(c).keySet());
+                sourceCandidates.add(rankSources(degrees.get(c), AnalysisPipeline.MAX_SOURCE_CANDIDATES));
+            }
+            timer.count(PipelineMetrics.ITEMS, clusters.size());
+        }
+        return new AnalysisResult(toxicTweets, Collections.emptyList(), clusters, sourceCandidates);
+    }
+
+    /**
+     * Ranks like {@link SourceIndex#rankSources}: fewer incoming connections first, then more outgoing, then the ID.
+     * @param degrees In-degree and out-degree of each member.
+     */
+    private static List<String> rankSources(Map<String, int[]> degrees, int limit) {
+        List<Map.Entry<String, int[]>> members = new ArrayList<>(degrees.entrySet());
+        members.sort((a, b) -> {
+            int[] x = a.getValue();
+            int[] y = b.getValue();
+            if (x[0] != y[0]) return Integer.compare(x[0], y[0]);
+            if (x[1] != y[1]) return Integer.compare(y[1], x[1]);
+            return a.getKey().compareTo(b.getKey());
+        });
+        List<String> ranked = new ArrayList<>(Math.min(limit, members.size()));
+        for (int i = 0; i < members.size() && ranked.size() < limit; i++) {
+            ranked.add(members.get(i).getKey());
+        }
+        return ranked;
+    }
+
+    /**
+     * Replaces an I/O error with the exit status of a worker that died, which is usually its cause.
+     */
+    private static IOException workerFailure(Worker[] workers, Exception e) {
+        for (Worker worker : workers) {
+            if (worker != null && !worker.process.isAlive() && worker.process.exitValue() != 0) {
+                return new IOException("Shard worker " + worker.shard + " exited with code "
+                        + worker.process.exitValue(), e);
+            }
+        }
+        return e instanceof IOException ? (IOException) e : ((UncheckedIOException) e).getCause();
+    }
+
+    /**
+     * A toxic tweet reported by a worker, with its position in the input and its component's node.
+     */
+    private static final class ToxicRecord {
+        final long sequence;
+        final int node;
+        final Tweet tweet;
+
+        ToxicRecord(long sequence, int node, Tweet tweet) {
+            this.sequence = sequence;
+            this.node = node;
+            this.tweet = tweet;
+        }
+    }
+
+    /**
+     * Dense union-find node numbers: one per local component met, keyed by shard and label,
+     * and one per user that links shards.
+     */
+    private static final class Nodes {
+        final Map<Long, Integer> components = new HashMap<>();
+        final Map<String, Integer> users = new HashMap<>();
+        int count;
+
+        int component(int shard, int label) {
+            return components.computeIfAbsent((long) shard << 32 | label, key -> count++);
+        }
+
+        int user(String userId) {
+            return users.computeIfAbsent(userId, key -> count++);
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * A worker process and the protocol streams to it; its standard error goes to ours.
+     */
+    private final class Worker {
+        final int shard;
+        final Process process;
+        final DataOutputStream out;
+        final DataInputStream in;
+
+        Worker(int shard) throws IOException {
+            this.shard = shard;
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(ShardWorker.class.getName());
+            command.addAll(Arrays.asList("--shard", Integer.toString(shard), "--shards", Integer.toString(shardCount),
+                    "--lexicon", lexicon.toString(), "--clustering", clusteringMode.name(),
+                    "--threads", Integer.toString(workerThreads)));
+            if (matcherAlgorithm != null) {
+                command.addAll(Arrays.asList("--matcher", matcherAlgorithm));
+            }
+            if (columnarStorage) {
+                command.add("--columnar");
+            }
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream(), 1 << 16));
+            in = new DataInputStream(new BufferedInputStream(process.getInputStream(), 1 << 16));
+        }
+
+        void sendTweet(long sequence, String tweetId, String userId, String text, String retweetOf) throws IOException {
+            out.writeByte(ShardWorker.TWEET);
+            out.writeLong(sequence);
+            ShardWorker.writeString(out, tweetId);
+            ShardWorker.writeString(out, userId);
+            ShardWorker.writeString(out, text);
+            ShardWorker.writeString(out, retweetOf == null ? "" : retweetOf);
+        }
+
+        void send(int command) throws IOException {
+            out.writeByte(command);
+            out.flush();
+        }
+
+        void lookup(List<String> userIds) throws IOException {
+            out.writeByte(ShardWorker.LOOKUP);
+            out.writeInt(userIds.size());
+            for (String userId : userIds) {
+                ShardWorker.writeString(out, userId);
+            }
+            out.flush();
+        }
+
+        /**
+         * @param components Pairs of local component and cluster index.
+         */
+        void members(List<int[]> components) throws IOException {
+            out.writeByte(ShardWorker.MEMBERS);
+            out.writeInt(components.size());
+            for (int[] pair : components) {
+                out.writeInt(pair[0]);
+                out.writeInt(pair[1]);
+            }
+            out.flush();
+        }
+
+        void quit() throws IOException {
+            send(ShardWorker.QUIT);
+            out.close();
+        }
+
+        void awaitExit() throws IOException {
+            try {
+                int status = process.waitFor();
+                if (status != 0) {
+                    throw new IOException("Shard worker " + shard + " exited with code " + status);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for shard worker " + shard);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.toxictweet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds likely source users of clusters from the reverse edges of a {@link UserGraph}.
+ * Build one per analysis; every query is linear in the cluster size plus its edges.
+ * Not thread-safe: queries share a scratch marking array.
+ */
+public class SourceIndex {
+    private final UserGraph graph;
+    private final int[] clusterMark; // clusterMark[u] == stamp when u is in the cluster being queried
+    private int stamp;
+
+    public SourceIndex(UserGraph graph) {
+        this.graph = graph;
+        this.clusterMark = new int[graph.userCount()];
+    }
+
+    /**
+     * Finds every user that no other cluster member has a connection to (zero in-degree within the cluster).
+     * @param cluster The set of user IDs in the cluster.
+     * @return The roots of the cluster, in no particular order.
+     */
+    public List<String> findRoots(Set<String> cluster) {
+        mark(cluster);
+        List<String> roots = new ArrayList<>();
+        for (String userId : cluster) {
+            int u = graph.indexOf(userId);
+            if (u < 0 || inDegreeWithin(u) == 0) {
+                roots.add(userId);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Ranks the members of a cluster as candidate sources.
+     * Fewer incoming connections from the cluster rank first, then more outgoing
+     * connections into the cluster, then the user ID, so roots always lead the list.
+     * @param cluster The set of user IDs in the cluster.
+     * @param limit The maximum number of candidates to return.
+     * @return The best candidates, best first.
+     */
+    public List<String> rankSources(Set<String> cluster, int limit) {
+        mark(cluster);
+        String[] ids = cluster.toArray(new String[0]);
+        int[] in = new int[ids.length];
+        int[] out = new int[ids.length];
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int u = graph.indexOf(ids[i]);
+            if (u >= 0) {
+                in[i] = inDegreeWithin(u);
+                out[i] = outDegreeWithin(u);
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            if (in[a] != in[b]) return Integer.compare(in[a], in[b]);
+            if (out[a] != out[b]) return Integer.compare(out[b], out[a]);
+            return ids[a].compareTo(ids[b]);
+        });
+
+        List<String> ranked = new ArrayList<>(Math.min(limit, ids.length));
+        for (int i = 0; i < ids.length && ranked.size() < limit; i++) {
+            ranked.add(ids[order[i]]);
+        }
+        return ranked;
+    }
+
+    /**
+     * @return The best source candidate, or null for an empty cluster.
+     */
+    public String findSource(Set<String> cluster) {
+        List<String> ranked = rankSources(cluster, 1);
+        return ranked.isEmpty() ? null : ranked.get(0);
+    }
+
+    /**
+     * Marks the members of a cluster with a fresh stamp, so no clearing is needed between queries.
+     */
+    private void mark(Set<String> cluster) {
+        if (++stamp == 0) {
+            Arrays.fill(clusterMark, 0); // Stamp wrapped around
+            stamp = 1;
+        }
+        for (String userId : cluster) {
+            int u = graph.indexOf(userId);
+            if (u >= 0) {
+                clusterMark[u] = stamp;
+            }
+        }
+    }
+
+    private int inDegreeWithin(int u) {
+        int[] offsets = graph.inOffsets();
+        int[] sources = graph.inSources();
+        int degree = 0;
+        for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+            int v = sources[k];
+            if (v != u && clusterMark[v] == stamp) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    private int outDegreeWithin(int u) {
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int degree = 0;
+        for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+            int v = targets[k];
+            if (v != u && clusterMark[v] == stamp) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.toxictweet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds near-duplicate tweets within a sliding window of a live stream, such as a copy-paste
+ * campaign within the last few minutes, with memory bounded by the window instead of the stream.
+ * <p>
+ * The window holds at most a fixed number of tweets and, optionally, only those that arrived within
+ * a time span; older tweets are evicted as new ones arrive. Each tweet joins the group of the earliest
+ * similar group representative in the window, as in {@link HashSimilarity}, or starts a group of its own.
+ * A group's representative is its oldest member in the window, and only representatives are kept in
+ * a {@link MinHashIndex}, by their band keys; when one is evicted the next member takes its place.
+ * Not thread-safe.
+ */
+public class StreamingSimilarity {
+
+    /**
+     * Receives each tweet that arrives while a near-duplicate of it is in the window.
+     */
+    public interface GroupListener {
+        /**
+         * @param group The tweet's group; only valid during the call.
+         */
+        void onNearDuplicate(Tweet tweet, Group group);
+    }
+
+    /**
+     * A live handle on a group of near-duplicates in the window. It reflects the window as it is,
+     * so it is only meaningful until the next tweet is offered.
+     */
+    public final class Group {
+        private final int slot;
+
+        private Group(int slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * @return The sequence number of the tweet that started the group; stable while the group is in the window.
+         */
+        public long getId() { return groupIds[slot]; }
+
+        /**
+         * @return The number of group members in the window.
+         */
+        public int size() { return groupSizes[slot]; }
+
+        /**
+         * @return The oldest member in the window, which new tweets are compared with.
+         */
+        public Tweet getRepresentative() { return tweets[groupHeads[slot]]; }
+
+        /**
+         * @return The members in the window, oldest first; copied on each call.
+         */
+        public List<Tweet> getTweets() {
+            List<Tweet> members = new ArrayList<>(groupSizes[slot]);
+            for (int entry = groupHeads[slot]; entry >= 0; entry = nextInGroup[entry]) {
+                members.add(tweets[entry]);
+            }
+            return members;
+        }
+    }
+
+    private final double similarityThreshold;
+    private final long windowMillis;
+    private final MinHashIndex representatives;
+    private GroupListener listener;
+
+    // The window: a ring of entries, oldest at head
+    private final Tweet[] tweets;
+    private final long[] arrivals;
+    private final int[] groupOf;
+    private final int[] nextInGroup; // Next newer member of the same group, or -1
+    private int head;
+    private int count;
+    private long lastArrival = Long.MIN_VALUE;
+
+    // Groups, by slot; at most one per entry
+    private final long[] groupIds;
+    private final int[] groupHeads;
+    private final int[] groupTails;
+    private final int[] groupSizes;
+    private final long[][] groupKeys; // Band keys of the representative
+    private final int[] freeGroups;
+    private int freeCount;
+
+    private final int[] seenStamp; // Per group slot, de-duplicates candidates sharing several bands
+    private int stamp;
+    private int[] candidates = new int[16];
+    private int candidateCount;
+
+    // Statistics
+    private long sequence;
+    private long comparisons;
+    private long nearDuplicates;
+    private long evictions;
+
+    /**
+     * @param thresholdPercent The similarity threshold, as for {@link HashSimilarity}.
+     * @param maxTweets The most tweets kept in the window.
+     * @param windowMillis How long a tweet stays in the window; 0 for no time limit.
+     */
+    public StreamingSimilarity(double thresholdPercent, int maxTweets, long windowMillis) {
+        if (maxTweets < 1) {
+            throw new IllegalArgumentException("Window must hold at least one tweet: " + maxTweets);
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window length must not be negative: " + windowMillis);
+        }
+        this.similarityThreshold = thresholdPercent / 100.0;
+        this.windowMillis = windowMillis;
+        this.representatives = new MinHashIndex(Math.max(similarityThreshold, 0.01));
+        this.tweets = new Tweet[maxTweets];
+        this.arrivals = new long[maxTweets];
+        this.groupOf = new int[maxTweets];
+        this.nextInGroup = new int[maxTweets];
+        this.groupIds = new long[maxTweets];
+        this.groupHeads = new int[maxTweets];
+        this.groupTails = new int[maxTweets];
+        this.groupSizes = new int[maxTweets];
+        this.groupKeys = new long[maxTweets][];
+        this.freeGroups = new int[maxTweets];
+        for (int g = 0; g < maxTweets; g++) {
+            freeGroups[g] = maxTweets - 1 - g;
+        }
+        this.freeCount = maxTweets;
+        this.seenStamp = new int[maxTweets];
+    }
+
+    /**
+     * Sets the listener told about each tweet that arrives with a near-duplicate in the window.
+     */
+    public void setListener(GroupListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a tweet that arrived now.
+     */
+    public Group offer(Tweet tweet) {
+        return offer(tweet, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a tweet to the window, first evicting the tweets that have expired or that it displaces.
+     * @param arrivalMillis When the tweet arrived; an earlier time than the last tweet's counts as the same time.
+     * @return The tweet's group, valid until the next call.
+     */
+    public Group offer(Tweet tweet, long arrivalMillis) {
+        long now = Math.max(arrivalMillis, lastArrival);
+        lastArrival = now;
+        if (windowMillis > 0) {
+            while (count > 0 && arrivals[head] <= now - windowMillis) {
+                evictOldest();
+            }
+        }
+        if (count == tweets.length) {
+            evictOldest();
+        }
+
+        int entry = (head + count) % tweets.length;
+        tweets[entry] = tweet;
+        arrivals[entry] = now;
+        nextInGroup[entry] = -1;
+        count++;
+
+        int group;
+        long[] keys = null;
+        if (similarityThreshold <= 0) {
+            group = count > 1 ? groupOf[head] : -1; // Every pair is similar
+        } else {
+            CharFingerprint fingerprint = tweet.getCharFingerprint();
+            keys = representatives.bandKeys(representatives.signature(fingerprint));
+            group = findGroup(fingerprint, keys);
+        }
+
+        Group result;
+        if (group < 0) {
+            group = freeGroups[--freeCount];
+            groupIds[group] = sequence;
+            groupHeads[group] = entry;
+            groupTails[group] = entry;
+            groupSizes[group] = 1;
+            if (keys != null) {
+                groupKeys[group] = keys;
+                representatives.add(group, keys);
+            }
+            groupOf[entry] = group;
+            result = new Group(group);
+        } else {
+            nextInGroup[groupTails[group]] = entry;
+            groupTails[group] = entry;
+            groupSizes[group]++;
+            groupOf[entry] = group;
+            nearDuplicates++;
+            result = new Group(group);
+            if (listener != null) {
+                listener.onNearDuplicate(tweet, result);
+            }
+        }
+        sequence++;
+        return result;
+    }
+
+    /**
+     * @return The slot of the earliest group whose representative is similar, or -1.
+     */
+    private int findGroup(CharFingerprint fingerprint, long[] keys) {
+        if (++stamp == 0) {
+            Arrays.fill(seenStamp, 0); // Stamp wrapped around
+            stamp = 1;
+        }
+        candidateCount = 0;
+        representatives.forEachCandidate(keys, this::addCandidate);
+        int best = -1;
+        for (int c = 0; c < candidateCount; c++) {
+            int group = candidates[c];
+            if (best >= 0 && groupIds[group] > groupIds[best]) {
+                continue; // Cannot beat an earlier similar group
+            }
+            comparisons++;
+            CharFingerprint other = tweets[groupHeads[group]].getCharFingerprint();
+            if (CharFingerprint.jaccard(other, fingerprint) >= similarityThreshold) {
+                best = group;
+            }
+        }
+        return best;
+    }
+
+    private void addCandidate(int group) {
+        if (seenStamp[group] == stamp) {
+            return;
+        }
+        seenStamp[group] = stamp;
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+        candidates[candidateCount++] = group;
+    }
+
+    /**
+     * Drops the oldest tweet. It is always the representative of its group, so the next member,
+     * if any, is indexed in its place.
+     */
+    private void evictOldest() {
+        int entry = head;
+        int group = groupOf[entry];
+        if (groupKeys[group] != null) {
+            representatives.remove(group, groupKeys[group]);
+            groupKeys[group] = null;
+        }
+        int next = nextInGroup[entry];
+        if (--groupSizes[group] == 0) {
+            freeGroups[freeCount++] = group;
+        } else {
+            groupHeads[group] = next;
+            if (similarityThreshold > 0) {
+                long[] keys = representatives.bandKeys(representatives.signature(tweets[next].getCharFingerprint()));
+                groupKeys[group] = keys;
+                representatives.add(group, keys);
+            }
+        }
+        tweets[entry] = null;
+        head = (head + 1) % tweets.length;
+        count--;
+        evictions++;
+    }
+
+    // Getters
+    public int getWindowCapacity() { return tweets.length; }
+    public long getWindowMillis() { return windowMillis; }
+    public int size() { return count; }
+    public long getTweetCount() { return sequence; }
+    public long getComparisonCount() { return comparisons; }
+    public long getEvictionCount() { return evictions; }
+
+    /**
+     * @return The number of tweets that arrived while a near-duplicate was in the window.
+     */
+    public long getNearDuplicateCount() { return nearDuplicates; }
+
+    /**
+     * @return The number of groups in the window, counting tweets without a near-duplicate.
+     */
+    public int groupCount() { return tweets.length - freeCount; }
+}
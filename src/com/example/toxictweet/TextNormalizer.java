@@ -0,0 +1,278 @@
+package com.example.toxictweet;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalizes tweet text for matching in one pass over a reusable buffer, keeping a map from every
+ * normalized character back to its position in the original text.
+ * <p>
+ * Rules, in order:
+ * <ul>
+ *   <li>Letters are lowercased and Latin letters lose their accents ("St&uuml;pid" becomes "stupid").</li>
+ *   <li>Inside a token (a run of non-whitespace) that has a letter, look-alike digits and '$' become
+ *       letters ("1d10t", "a$$"), and so do other look-alike symbols between two letters ("h@te");
+ *       tokens without letters, like "2024", keep their digits, and "@user" or "wow!" keep no symbol.</li>
+ *   <li>Other symbols are dropped, which also joins separated letters ("i.d.i.o.t", "can't").</li>
+ *   <li>Whitespace runs become one space, and runs of three or more single-letter tokens are
+ *       joined ("i d i o t").</li>
+ * </ul>
+ * Some look-alikes have a second reading: '0' can stand for "u" and '1' for "l", and a run of '0' for
+ * a single "u". {@link #normalize(CharSequence, boolean)} produces either reading, and
+ * {@link #hasAlternateReading()} tells whether the second one differs, so "st00pid" can be matched
+ * as "stoopid" and as "stupid", and "ki11" as "kiii" and as "kill".
+ * <p>
+ * Not thread-safe: each thread needs its own instance, which it can reuse for every text.
+ */
+public final class TextNormalizer {
+    /** Characters below this are folded through a table built once from {@link Normalizer}. */
+    private static final int FOLD_TABLE_SIZE = 0x250; // Latin-1 and Latin Extended-A/B
+    private static final char[] FOLD = buildFoldTable();
+    private static final char[] LEET = buildLeetTable();
+    private static final char[] LEET_ALTERNATE = buildAlternateLeetTable();
+    /** Single-letter tokens in a row that are treated as one spelled-out word. */
+    private static final int SPELLED_RUN = 3;
+
+    private char[] buffer = new char[256];
+    private int[] offsets = new int[256]; // offsets[i] is the original index of buffer[i]
+    private int length;
+    private boolean alternateReading; // Whether the last text had a look-alike with a second reading
+
+    /**
+     * Normalizes a text into the internal buffer, replacing the previous contents.
+     * @return This normalizer, for chaining.
+     */
+    public TextNormalizer normalize(CharSequence text) {
+        return normalize(text, false);
+    }
+
+    /**
+     * Normalizes a text with the first or the second reading of ambiguous look-alikes. The second
+     * reading also reads a run of '0' as a single "u"; every kept character still maps back to its
+     * original position.
+     * @return This normalizer, for chaining.
+     */
+    public TextNormalizer normalize(CharSequence text, boolean alternate) {
+        char[] leet = alternate ? LEET_ALTERNATE : LEET;
+        alternateReading = false;
+        int n = text.length();
+        if (buffer.length < n) {
+            buffer = new char[Math.max(n, buffer.length * 2)];
+            offsets = new int[buffer.length];
+        }
+        length = 0;
+        int runStart = -1; // Buffer position of the first token in the current run of single letters
+        int runCount = 0;
+        int i = 0;
+        while (i < n) {
+            // Skip whitespace and find the token
+            while (i < n && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            int firstLetter = -1;
+            int lastLetter = -1;
+            while (i < n && !Character.isWhitespace(text.charAt(i))) {
+                if (Character.isLetter(text.charAt(i))) {
+                    if (firstLetter < 0) {
+                        firstLetter = i;
+                    }
+                    lastLetter = i;
+                }
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+
+            int tokenStart = length > 0 ? length + 1 : 0;
+            int before = length;
+            if (length > 0) {
+                append(' ', start);
+            }
+            for (int k = start; k < i; k++) {
+                char original = text.charAt(k);
+                char c = fold(original, leet, firstLetter >= 0, k > firstLetter && k < lastLetter);
+                if (firstLetter >= 0 && original < LEET.length && LEET[original] != LEET_ALTERNATE[original]) {
+                    alternateReading = true;
+                }
+                if (alternate && original == '0' && k > start && text.charAt(k - 1) == '0') {
+                    continue; // "00" reads as one "u"
+                }
+                if (c != 0) {
+                    append(c, k);
+                }
+            }
+            if (length == tokenStart) {
+                length = before; // Nothing left of the token: drop its separator too
+                continue;
+            }
+
+            // Join spelled-out words, e.g. "i d i o t"
+            if (length - tokenStart == 1 && Character.isLetter(buffer[tokenStart])) {
+                if (runCount == 0) {
+                    runStart = tokenStart;
+                }
+                runCount++;
+                if (runCount == SPELLED_RUN) {
+                    joinRun(runStart);
+                } else if (runCount > SPELLED_RUN) {
+                    removeSeparatorBefore(length - 1);
+                }
+            } else {
+                runCount = 0;
+            }
+        }
+        return this;
+    }
+
+    /** The normalized characters; valid up to {@link #length()} until the next call. */
+    public char[] buffer() { return buffer; }
+
+    public int length() { return length; }
+
+    /**
+     * @return true if the last text had a look-alike whose second reading differs from the first.
+     */
+    public boolean hasAlternateReading() { return alternateReading; }
+
+    /**
+     * @return The original index of the normalized character at {@code index}.
+     */
+    public int originalOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Maps a normalized range [start, end) back to the smallest original range that covers it.
+     * @return The original end index (exclusive) of the range.
+     */
+    public int originalEnd(int end) {
+        return offsets[end - 1] + 1;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void append(char c, int originalIndex) {
+        buffer[length] = c;
+        offsets[length] = originalIndex;
+        length++;
+    }
+
+    /**
+     * Removes the separators between the single-letter tokens of a run, which ends at the buffer end.
+     */
+    private void joinRun(int runStart) {
+        int write = runStart;
+        for (int read = runStart; read < length; read++) {
+            if (buffer[read] != ' ') {
+                buffer[write] = buffer[read];
+                offsets[write] = offsets[read];
+                write++;
+            }
+        }
+        length = write;
+    }
+
+    private void removeSeparatorBefore(int index) {
+        buffer[index - 1] = buffer[index];
+        offsets[index - 1] = offsets[index];
+        length--;
+    }
+
+    /**
+     * Folds one character.
+     * @param leet The look-alike table of the reading in use.
+     * @param inWord Whether the token contains a letter, enabling look-alike digits and '$'.
+     * @param betweenLetters Whether there are letters before and after it in the token, enabling other look-alike symbols.
+     * @return The normalized character, or 0 to drop it.
+     */
+    private static char fold(char c, char[] leet, boolean inWord, boolean betweenLetters) {
+        if (inWord && c < leet.length && leet[c] != 0 && (betweenLetters || Character.isDigit(c) || c == '$')) {
+            return leet[c];
+        }
+        if (c < FOLD_TABLE_SIZE) {
+            return FOLD[c];
+        }
+        if (Character.isLetterOrDigit(c)) {
+            return Character.toLowerCase(c);
+        }
+        return 0;
+    }
+
+    /**
+     * Maps every character below {@value #FOLD_TABLE_SIZE} to its lowercase, accent-free form,
+     * or 0 if it is neither a letter nor a digit.
+     */
+    private static char[] buildFoldTable() {
+        char[] table = new char[FOLD_TABLE_SIZE];
+        for (int c = 0; c < FOLD_TABLE_SIZE; c++) {
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            char lower = Character.toLowerCase((char) c);
+            String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            table[c] = base < 128 && Character.isLetterOrDigit(base) ? base : lower;
+        }
+        return table;
+    }
+
+    /**
+     * Common look-alike substitutions, applied only inside tokens that contain a letter.
+     */
+    private static char[] buildLeetTable() {
+        char[] table = new char[128];
+        table['0'] = 'o';
+        table['1'] = 'i';
+        table['3'] = 'e';
+        table['4'] = 'a';
+        table['5'] = 's';
+        table['7'] = 't';
+        table['@'] = 'a';
+        table['$'] = 's';
+        table['!'] = 'i';
+        table['|'] = 'l';
+        return table;
+    }
+
+    /**
+     * The look-alike table with the second reading of ambiguous characters.
+     */
+    private static char[] buildAlternateLeetTable() {
+        char[] table = buildLeetTable();
+        table['0'] = 'u';
+        table['1'] = 'l';
+        return table;
+    }
+
+    /**
+     * Normalizes lexicon entries like tweet text, so an entry written with look-alikes ("n00b")
+     * matches however the text spells it. Entries that normalize to nothing or to a duplicate are dropped.
+     */
+    public static List<String> normalizeWords(Collection<String> words) {
+        TextNormalizer normalizer = new TextNormalizer();
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String word : words) {
+            String form = normalizer.normalize(word).toString();
+            if (!form.isEmpty()) {
+                normalized.add(form);
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Allocating convenience for one-off use.
+     */
+    public static String normalizeToString(CharSequence text) {
+        return new TextNormalizer().normalize(text).toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.toxictweet;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Common contract for the toxic word matchers.
+ */
+public interface ToxicMatcher {
+
+    /**
+     * System property used to pick the matcher implementation ("aho-corasick" or "rabin-karp").
+     */
+    String ALGORITHM_PROPERTY = "toxic.matcher";
+
+    /**
+     * Searches for all occurrences of the patterns in the given text.
+     * @param text The text to search within.
+     * @return A set of toxic words found in the text.
+     */
+    Set<String> search(String text);
+
+    /**
+     * Receives each match found by {@link #forEachMatch}.
+     */
+    interface MatchListener {
+        /**
+         * @param word The toxic word that matched.
+         * @param start Index of its first character in the searched text.
+         * @param end Index just past its last character.
+         */
+        void onMatch(String word, int start, int end);
+    }
+
+    /**
+     * Reports every occurrence of the patterns in text[0, length), with its position.
+     * The default implementation searches a copy of the text and then locates each word found;
+     * matchers that can report positions while scanning should override it.
+     */
+    default void forEachMatch(char[] text, int length, MatchListener listener) {
+        String copy = new String(text, 0, length);
+        for (String word : search(copy)) {
+            for (int at = copy.indexOf(word); at >= 0; at = copy.indexOf(word, at + 1)) {
+                listener.onMatch(word, at, at + word.length());
+            }
+        }
+    }
+
+    /**
+     * Creates the matcher selected by the {@value #ALGORITHM_PROPERTY} system property.
+     * Aho-Corasick is the default; Rabin-Karp is kept as a fallback.
+     * @param patterns The toxic words to look for.
+     * @return A matcher ready to search texts.
+     */
+    static ToxicMatcher create(List<String> patterns) {
+        return create(patterns, System.getProperty(ALGORITHM_PROPERTY, "aho-corasick"));
+    }
+
+    /**
+     * Creates a matcher for the given algorithm name.
+     * @param patterns The toxic words to look for.
+     * @param algorithm Either "aho-corasick" or "rabin-karp".
+     * @return A matcher ready to search texts.
+     */
+    static ToxicMatcher create(List<String> patterns, String algorithm) {
+        switch (algorithm.trim().toLowerCase()) {
+            case "rabin-karp":
+            case "rabinkarp":
+                return new RabinKarp(patterns);
+            case "aho-corasick":
+            case "ahocorasick":
+                return new AhoCorasick(patterns);
+            default:
+                throw new IllegalArgumentException("Unknown toxic matcher: " + algorithm);
+        }
+    }
+}
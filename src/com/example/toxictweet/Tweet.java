@@ -1,24 +1,38 @@
 package com.example.toxictweet;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 /**
  * Represents a single tweet with its properties.
+ * Subclasses may keep the data elsewhere, such as the views of a {@link ColumnarTweetStore};
+ * they override every getter and setter.
  */
 public class Tweet {
+    /** Shared empty span array for tweets without toxic words. */
+    public static final int[] NO_SPANS = new int[0];
+
     private final String tweetId;
     private final String userId;
     private final String originalText;
     private boolean isToxic;
     private Set<String> toxicWords;
+    private int[] toxicSpans = NO_SPANS; // Highlight spans as start/end pairs, set at detection
+    private CharFingerprint charFingerprint; // Cached for similarity checks
 
     public Tweet(String tweetId, String userId, String text) {
         this.tweetId = tweetId;
         this.userId = userId;
         this.originalText = text;
         this.isToxic = false;
-        this.toxicWords = new HashSet<>();
+        this.toxicWords = Collections.emptySet(); // Replaced at detection; most tweets stay clean
+    }
+
+    /**
+     * For views whose data is kept outside the object.
+     */
+    protected Tweet() {
+        this(null, null, null);
     }
 
     // Getters
@@ -28,17 +42,34 @@ public class Tweet {
     public boolean isToxic() { return isToxic; }
     public Set<String> getToxicWords() { return toxicWords; }
 
+    /**
+     * Returns the parts of the original text to highlight, as {@code [start0, end0, start1, end1, ...]}
+     * with ascending, non-overlapping character ranges. Callers must not modify the array.
+     */
+    public int[] getToxicSpans() { return toxicSpans; }
+
+    /**
+     * Returns the distinct lowercase characters of the text, computed on first use.
+     */
+    public CharFingerprint getCharFingerprint() {
+        if (charFingerprint == null) {
+            charFingerprint = CharFingerprint.of(getOriginalText());
+        }
+        return charFingerprint;
+    }
+
     // Setters
     public void setToxic(boolean toxic) { isToxic = toxic; }
     public void setToxicWords(Set<String> toxicWords) { this.toxicWords = toxicWords; }
+    public void setToxicSpans(int[] toxicSpans) { this.toxicSpans = toxicSpans; }
 
     @Override
     public String toString() {
         return "Tweet{" +
-                "tweetId='" + tweetId + '\'' +
-                ", userId='" + userId + '\'' +
-                ", text='" + originalText + '\'' +
-                ", isToxic=" + isToxic +
+                "tweetId='" + getTweetId() + '\'' +
+                ", userId='" + getUserId() + '\'' +
+                ", text='" + getOriginalText() + '\'' +
+                ", isToxic=" + isToxic() +
                 '}';
     }
 }
@@ -0,0 +1,248 @@
+package com.example.toxictweet;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sparse record index over a UTF-8 tweet file, built by a background thread so the first
+ * records can be read long before the whole file has been scanned.
+ * <p>
+ * Records are grouped into pages of {@link #PAGE_SIZE}; only the byte offset of each page is kept,
+ * so the index of a file with a hundred million records takes a few megabytes. A line is a record
+ * when it has at least two commas, the same rule {@link TweetLineParser} applies.
+ * Records become visible a whole page at a time, and the last partial page when the scan completes.
+ */
+public class TweetFileIndex implements AutoCloseable {
+    /** Records per page. */
+    public static final int PAGE_SIZE = 256;
+    /** Listeners are called after this many new records, and when the scan ends. */
+    private static final int NOTIFY_INTERVAL = 1 << 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<Consumer<TweetFileIndex>> listeners = new CopyOnWriteArrayList<>();
+    private Thread indexer;
+
+    // Published state, guarded by this
+    private long[] pageOffsets = new long[1024]; // Byte offset of the first record of each page
+    private int recordCount;
+    private long indexedEnd;                     // Byte offset just past the last published record
+    private boolean complete;
+    private IOException failure;
+
+    /**
+     * Opens the file; call {@link #start()} to begin indexing.
+     */
+    public TweetFileIndex(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Registers a listener that is called on the indexing thread as records are published.
+     */
+    public void addListener(Consumer<TweetFileIndex> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts scanning the file on a daemon thread.
+     */
+    public void start() {
+        indexer = new Thread(this::scan, "tweet-index");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    public Path getFile() { return file; }
+
+    /**
+     * @return The number of records indexed so far.
+     */
+    public synchronized int recordCount() { return recordCount; }
+
+    /**
+     * @return true once the whole file has been scanned, or scanning failed.
+     */
+    public synchronized boolean isComplete() { return complete; }
+
+    /**
+     * @return The error that stopped the scan, or null.
+     */
+    public synchronized IOException getFailure() { return failure; }
+
+    /**
+     * @return The number of bytes scanned so far, for progress reporting.
+     */
+    public synchronized long bytesIndexed() { return indexedEnd; }
+
+    public long fileSize() throws IOException { return channel.size(); }
+
+    /**
+     * Blocks until at least {@code count} records are indexed or the scan has ended.
+     * @return The number of records indexed.
+     */
+    public synchronized int awaitRecords(int count) throws InterruptedException {
+        while (recordCount < count && !complete) {
+            wait();
+        }
+        return recordCount;
+    }
+
+    /**
+     * Parses the records of one page in file order.
+     * @return The number of records handed to the handler.
+     */
+    public int readPage(int page, TweetLineParser.RecordHandler handler) throws IOException {
+        long start;
+        long end;
+        int records;
+        synchronized (this) {
+            int pages = (recordCount + PAGE_SIZE - 1) / PAGE_SIZE;
+            if (page < 0 || page >= pages) {
+                throw new IndexOutOfBoundsException("Page " + page + " of " + pages);
+            }
+            start = pageOffsets[page];
+            end = page + 1 < pages ? pageOffsets[page + 1] : indexedEnd;
+            records = Math.min(PAGE_SIZE, recordCount - page * PAGE_SIZE);
+        }
+
+        // Positional reads are safe from any thread and leave no mapping behind
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("Tweet file shrank while paging: " + file);
+            }
+        }
+        TweetLineParser.ByteSource line = new TweetLineParser.ByteSource(buffer);
+        int parsed = 0;
+        int lineStart = 0;
+        int limit = buffer.limit();
+        while (lineStart < limit && parsed < records) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            line.reset(lineStart, lineEnd - lineStart);
+            if (TweetLineParser.parse(line, handler)) {
+                parsed++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return parsed;
+    }
+
+    /**
+     * Stops indexing and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (indexer != null) {
+            indexer.interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Scans the file window by window, counting records and publishing a page offset every {@link #PAGE_SIZE} records.
+     */
+    private void scan() {
+        try {
+            long size = channel.size();
+            long position = 0;
+            long lineStart = 0;
+            int commas = 0;
+            int records = 0;  // Records found, published or not
+            int published = 0;
+            long pageStart = 0;
+            while (position < size) {
+                long windowSize = Math.min(MappedTweetReader.WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int from = 0;
+                if (position == 0 && windowSize >= 3 && (window.get(0) & 0xFF) == 0xEF
+                        && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+                    from = 3; // Skip the UTF-8 byte order mark
+                    lineStart = 3;
+                }
+                for (int i = from; i < (int) windowSize; i++) {
+                    byte b = window.get(i);
+                    if (b == ',') {
+                        commas++;
+                    } else if (b == '\n') {
+                        if (commas >= 2) {
+                            if (records % PAGE_SIZE == 0) {
+                                pageStart = lineStart;
+                            }
+                            records++;
+                            if (records % PAGE_SIZE == 0) {
+                                if (Thread.currentThread().isInterrupted()) {
+                                    return; // Closed
+                                }
+                                publish(pageStart, position + i + 1, records);
+                                published = records;
+                            }
+                        }
+                        commas = 0;
+                        lineStart = position + i + 1;
+                    }
+                }
+                position += windowSize;
+            }
+            if (commas >= 2) {
+                // Last line without a newline
+                if (records % PAGE_SIZE == 0) {
+                    pageStart = lineStart;
+                }
+                records++;
+            }
+            if (records > published) {
+                publish(pageStart, size, records);
+            }
+            finish(null);
+        } catch (IOException e) {
+            finish(e);
+        }
+    }
+
+    private void publish(long pageStart, long end, int records) {
+        int previous;
+        synchronized (this) {
+            previous = recordCount;
+            int page = (records - 1) / PAGE_SIZE;
+            if (page == pageOffsets.length) {
+                pageOffsets = Arrays.copyOf(pageOffsets, page * 2);
+            }
+            pageOffsets[page] = pageStart;
+            recordCount = records;
+            indexedEnd = end;
+            notifyAll();
+        }
+        if (previous == 0 || previous / NOTIFY_INTERVAL != records / NOTIFY_INTERVAL) {
+            notifyListeners();
+        }
+    }
+
+    private void finish(IOException error) {
+        synchronized (this) {
+            complete = true;
+            failure = error;
+            notifyAll();
+        }
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (Consumer<TweetFileIndex> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.toxictweet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits one tweet record ({@code tweetId,userId,text[,RT@sourceUser]}) into its fields.
+ * <p>
+ * The text may be wrapped in double quotes (with {@code ""} as an escaped quote) so it can contain
+ * commas. Unquoted text may also contain commas: only a trailing column starting with {@code RT@}
+ * is treated as the retweet column. Field boundaries are found in place and only the four
+ * fields are materialized as Strings.
+ */
+public final class TweetLineParser {
+
+    /**
+     * Receives the fields of every record that has at least an id, a user and a text.
+     */
+    public interface RecordHandler {
+        /**
+         * @param retweetOf The source user of a retweet, or null if the record is not a retweet.
+         */
+        void onTweet(String tweetId, String userId, String text, String retweetOf);
+    }
+
+    /**
+     * Random access to the characters of one record, either a String or UTF-8 bytes.
+     * All delimiters are ASCII, so scanning UTF-8 bytes never splits a multi-byte character.
+     */
+    interface Source {
+        int length();
+        int at(int index);
+        String decode(int start, int end);
+    }
+
+    private TweetLineParser() {
+    }
+
+    /**
+     * Parses a record held in a String.
+     * @return true if the line held a tweet.
+     */
+    public static boolean parse(String line, RecordHandler handler) {
+        return parse(new StringSource(line), handler);
+    }
+
+    static boolean parse(Source src, RecordHandler handler) {
+        int end = src.length();
+        while (end > 0 && (src.at(end - 1) == '\r' || src.at(end - 1) == '\n')) {
+            end--;
+        }
+
+        int firstComma = indexOf(src, ',', 0, end);
+        if (firstComma < 0) return false;
+        int secondComma = indexOf(src, ',', firstComma + 1, end);
+        if (secondComma < 0) return false;
+
+        String tweetId = trimmed(src, 0, firstComma);
+        String userId = trimmed(src, firstComma + 1, secondComma);
+
+        int textStart = skipSpaces(src, secondComma + 1, end);
+        String text;
+        int restStart; // Start of the optional fourth column, or -1
+        if (textStart < end && src.at(textStart) == '"') {
+            // Quoted text: runs to the closing quote, "" is an escaped quote
+            int i = textStart + 1;
+            boolean escaped = false;
+            while (i < end) {
+                if (src.at(i) == '"') {
+                    if (i + 1 < end && src.at(i + 1) == '"') {
+                        escaped = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            text = src.decode(textStart + 1, Math.min(i, end));
+            if (escaped) {
+                text = text.replace("\"\"", "\"");
+            }
+            int comma = indexOf(src, ',', Math.min(i + 1, end), end);
+            restStart = comma < 0 ? -1 : comma + 1;
+        } else {
+            // Unquoted text: everything up to a trailing ",RT@user" column
+            int lastComma = lastIndexOf(src, ',', textStart, end);
+            if (lastComma >= 0 && isRetweetColumn(src, lastComma + 1, end)) {
+                text = trimmed(src, textStart, lastComma);
+                restStart = lastComma + 1;
+            } else {
+                text = trimmed(src, textStart, end);
+                restStart = -1;
+            }
+        }
+
+        String retweetOf = null;
+        if (restStart >= 0 && isRetweetColumn(src, restStart, end)) {
+            String source = trimmed(src, skipSpaces(src, restStart, end) + 3, end);
+            if (!source.isEmpty()) {
+                retweetOf = source;
+            }
+        }
+
+        handler.onTweet(tweetId, userId, text, retweetOf);
+        return true;
+    }
+
+    private static boolean isRetweetColumn(Source src, int start, int end) {
+        int i = skipSpaces(src, start, end);
+        return i + 3 <= end
+                && (src.at(i) == 'R' || src.at(i) == 'r')
+                && (src.at(i + 1) == 'T' || src.at(i + 1) == 't')
+                && src.at(i + 2) == '@';
+    }
+
+    private static String trimmed(Source src, int start, int end) {
+        start = skipSpaces(src, start, end);
+        while (end > start && isSpace(src.at(end - 1))) {
+            end--;
+        }
+        return src.decode(start, end);
+    }
+
+    private static int skipSpaces(Source src, int start, int end) {
+        while (start < end && isSpace(src.at(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static int indexOf(Source src, int c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (src.at(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(Source src, int c, int from, int end) {
+        for (int i = end - 1; i >= from; i--) {
+            if (src.at(i) == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * A record held in a String.
+     */
+    private static final class StringSource implements Source {
+        private final String line;
+
+        StringSource(String line) {
+            this.line = line;
+        }
+
+        @Override public int length() { return line.length(); }
+        @Override public int at(int index) { return line.charAt(index); }
+        @Override public String decode(int start, int end) { return line.substring(start, end); }
+    }
+
+    /**
+     * A record held as UTF-8 bytes in a (typically memory-mapped) buffer, read with absolute gets.
+     * The same instance is repositioned for every line so scanning allocates nothing.
+     */
+    static final class ByteSource implements Source {
+        private final ByteBuffer buffer;
+        private int offset;
+        private int length;
+        private byte[] scratch = new byte[256];
+
+        ByteSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void reset(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override public int length() { return length; }
+        @Override public int at(int index) { return buffer.get(offset + index) & 0xFF; }
+
+        @Override
+        public String decode(int start, int end) {
+            int n = end - start;
+            if (n <= 0) return "";
+            if (n > scratch.length) {
+                scratch = Arrays.copyOf(scratch, Math.max(n, scratch.length * 2));
+            }
+            for (int k = 0; k < n; k++) {
+                scratch[k] = buffer.get(offset + start + k); // The bulk absolute get needs JDK 13
+            }
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Detects toxic words in one tweet at a time: normalizes the text with a reused {@link TextNormalizer},
+ * runs the matcher over the normalized buffer and maps each match back to the original text for highlighting.
+ * With a {@link DetectionCache}, texts seen before reuse their cached result.
+ * Not thread-safe; each detection thread keeps its own scanner.
+ */
+final class TweetScanner implements ToxicMatcher.MatchListener {
+    private final TextNormalizer normalizer = new TextNormalizer();
+    private final DetectionCache cache; // Shared between scanners, or null
+    private Set<String> words;
+    private int[] spans; // Spans of the last scan, or null until computed
+    private long[] matches = new long[16]; // Original start << 32 | original end
+    private int matchCount;
+
+    TweetScanner() {
+        this(null);
+    }
+
+    TweetScanner(DetectionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Scans a tweet's text; the highlight spans are available from {@link #spans()} until the next scan.
+     * @return An unmodifiable set of the distinct toxic words found.
+     */
+    Set<String> scan(String text, ToxicMatcher matcher) {
+        if (cache != null) {
+            DetectionCache.Entry cached = cache.get(text);
+            if (cached != null) {
+                spans = cached.spans();
+                return cached.words();
+            }
+        }
+
+        words = null;
+        spans = null;
+        matchCount = 0;
+        normalizer.normalize(text);
+        matcher.forEachMatch(normalizer.buffer(), normalizer.length(), this);
+        if (normalizer.hasAlternateReading()) {
+            // "st00pid" also reads as "stupid"; the second reading maps back to the same spans
+            normalizer.normalize(text, true);
+            matcher.forEachMatch(normalizer.buffer(), normalizer.length(), this);
+        }
+        Set<String> found = words == null ? Collections.emptySet() : Collections.unmodifiableSet(words);
+        if (cache != null && cache.admit(text)) {
+            cache.put(text, found, spans());
+        }
+        return found;
+    }
+
+    @Override
+    public void onMatch(String word, int start, int end) {
+        if (words == null) {
+            words = new HashSet<>();
+        }
+        words.add(word);
+        if (matchCount == matches.length) {
+            matches = Arrays.copyOf(matches, matchCount * 2);
+        }
+        long originalStart = normalizer.originalOffset(start);
+        matches[matchCount++] = originalStart << 32 | normalizer.originalEnd(end);
+    }
+
+    /**
+     * @return The spans of the last scan, sorted and with overlapping matches merged, see {@link Tweet#getToxicSpans()}.
+     */
+    int[] spans() {
+        if (spans == null) {
+            spans = mergeSpans();
+        }
+        return spans;
+    }
+
+    private int[] mergeSpans() {
+        if (matchCount == 0) {
+            return Tweet.NO_SPANS;
+        }
+        Arrays.sort(matches, 0, matchCount);
+        int[] merged = new int[matchCount * 2];
+        int count = 0;
+        for (int i = 0; i < matchCount; i++) {
+            int start = (int) (matches[i] >>> 32);
+            int end = (int) matches[i];
+            if (count > 0 && start <= merged[count - 1]) {
+                merged[count - 1] = Math.max(merged[count - 1], end);
+            } else {
+                merged[count++] = start;
+                merged[count++] = end;
+            }
+        }
+        return count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.toxictweet;
+
+/**
+ * Disjoint-set forest over dense integer ids with union by size and path halving.
+ * Both operations are iterative, so the stack depth stays constant however long a chain gets.
+ */
+public class UnionFind {
+    private final int[] parent;
+    private final int[] size;
+
+    public UnionFind(int count) {
+        parent = new int[count];
+        size = new int[count];
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    /**
+     * Returns the representative of the set containing x, compressing the path on the way.
+     */
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Path halving
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Merges the sets containing a and b.
+     * @return The representative of the merged set.
+     */
+    public int union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return rootA;
+        }
+        if (size[rootA] < size[rootB]) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+        return rootA;
+    }
+
+    /**
+     * @return The number of elements in the set containing x.
+     */
+    public int sizeOf(int x) {
+        return size[find(x)];
+    }
+
+    public int count() {
+        return parent.length;
+    }
+}
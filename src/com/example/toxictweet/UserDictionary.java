@@ -0,0 +1,79 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+
+/**
+ * Interns user IDs into dense ints (0, 1, 2, ...) in order of first appearance.
+ * Uses open addressing over plain arrays, so there are no boxed keys or entry objects per user.
+ */
+public class UserDictionary {
+    private String[] slots = new String[16]; // Hash table of IDs
+    private int[] slotIds = new int[16];     // Dense index stored next to each ID
+    private String[] byIndex = new String[16];
+    private int size;
+
+    /**
+     * Returns the index of a user ID, assigning the next free index if it is new.
+     */
+    public int intern(String userId) {
+        int slot = findSlot(userId);
+        if (slots[slot] != null) {
+            return slotIds[slot];
+        }
+        if (size == byIndex.length) {
+            byIndex = Arrays.copyOf(byIndex, size * 2);
+        }
+        int index = size++;
+        byIndex[index] = userId;
+        slots[slot] = userId;
+        slotIds[slot] = index;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return index;
+    }
+
+    /**
+     * @return The index of a user ID, or -1 if it was never interned.
+     */
+    public int indexOf(String userId) {
+        int slot = findSlot(userId);
+        return slots[slot] == null ? -1 : slotIds[slot];
+    }
+
+    public String userId(int index) {
+        return byIndex[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int findSlot(String userId) {
+        int mask = slots.length - 1;
+        int slot = mix(userId.hashCode()) & mask;
+        while (slots[slot] != null && !slots[slot].equals(userId)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        String[] oldSlots = slots;
+        int[] oldIds = slotIds;
+        slots = new String[oldSlots.length * 2];
+        slotIds = new int[oldSlots.length * 2];
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != null) {
+                int slot = findSlot(oldSlots[i]);
+                slots[slot] = oldSlots[i];
+                slotIds[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.toxictweet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable form of the user propagation graph.
+ * User IDs are interned to dense ints and edges (retweeter -> source user) are stored in
+ * compressed-sparse-row arrays in both directions, so a traversal step is an array read
+ * instead of a string hash lookup and an edge costs 8 bytes.
+ */
+public class UserGraph {
+    private final UserDictionary dictionary;
+    private final int userCount;
+    private final int[] outOffsets; // Edges of user u are outTargets[outOffsets[u] .. outOffsets[u + 1])
+    private final int[] outTargets;
+    private final int[] inOffsets;  // Reverse edges of user u are inSources[inOffsets[u] .. inOffsets[u + 1])
+    private final int[] inSources;
+
+    private UserGraph(UserDictionary dictionary, int userCount, int[] outOffsets, int[] outTargets,
+                      int[] inOffsets, int[] inSources) {
+        this.dictionary = dictionary;
+        this.userCount = userCount;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Builds the compact graph from the map-based representation.
+     */
+    public static UserGraph fromUsers(Map<String, User> users) {
+        Builder builder = new Builder();
+        for (String userId : users.keySet()) {
+            builder.addUser(userId);
+        }
+        for (Map.Entry<String, User> entry : users.entrySet()) {
+            for (String target : entry.getValue().getConnections()) {
+                builder.addEdge(entry.getKey(), target);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Expands the graph back into one {@link User} object per user.
+     */
+    public Map<String, User> toUserMap() {
+        Map<String, User> users = new HashMap<>(userCount * 2);
+        for (int u = 0; u < userCount; u++) {
+            User user = new User(userId(u));
+            for (int k = outOffsets[u]; k < outOffsets[u + 1]; k++) {
+                user.addConnection(userId(outTargets[k]));
+            }
+            users.put(user.getUserId(), user);
+        }
+        return users;
+    }
+
+    public int userCount() { return userCount; }
+    public int edgeCount() { return outTargets.length; }
+
+    public String userId(int user) {
+        return dictionary.userId(user);
+    }
+
+    /**
+     * @return The dense index of a user ID, or -1 if the user is not in the graph.
+     */
+    public int indexOf(String userId) {
+        int index = dictionary.indexOf(userId);
+        return index < userCount ? index : -1;
+    }
+
+    public int outDegree(int user) { return outOffsets[user + 1] - outOffsets[user]; }
+    public int inDegree(int user) { return inOffsets[user + 1] - inOffsets[user]; }
+
+    // Raw CSR arrays for tight loops; callers must not modify them.
+    public int[] outOffsets() { return outOffsets; }
+    public int[] outTargets() { return outTargets; }
+    public int[] inOffsets() { return inOffsets; }
+    public int[] inSources() { return inSources; }
+
+    /**
+     * Collects users and edges incrementally, typically while tweets are ingested.
+     * {@link #build()} can be called repeatedly; later additions only affect later builds.
+     */
+    public static class Builder {
+        private final UserDictionary dictionary = new UserDictionary();
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int edgeCount;
+
+        /**
+         * Interns a user ID and returns its dense index.
+         */
+        public int addUser(String userId) {
+            return dictionary.intern(userId);
+        }
+
+        /**
+         * Adds a directed edge from retweeter to source user; duplicates are removed by {@link #build()}.
+         */
+        public void addEdge(int from, int to) {
+            if (edgeCount == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+            }
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeCount++;
+        }
+
+        public void addEdge(String from, String to) {
+            addEdge(addUser(from), addUser(to));
+        }
+
+        public int userCount() { return dictionary.size(); }
+        public String userId(int user) { return dictionary.userId(user); }
+
+        /**
+         * @return The index of a user ID, or -1 if it was never added.
+         */
+        public int indexOf(String userId) { return dictionary.indexOf(userId); }
+
+        /**
+         * @return The number of edges added so far, duplicates included; edges keep their insertion order.
+         */
+        public int edgeCount() { return edgeCount; }
+        public int edgeSource(int edge) { return edgeFrom[edge]; }
+        public int edgeTarget(int edge) { return edgeTo[edge]; }
+
+        /**
+         * Sorts the collected edges into forward and reverse CSR arrays.
+         */
+        public UserGraph build() {
+            int n = dictionary.size();
+
+            // Forward edges: counting sort by source, then sort and de-duplicate each row
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[edgeFrom[e] + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] targets = new int[edgeCount];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < edgeCount; e++) {
+                targets[fill[edgeFrom[e]]++] = edgeTo[e];
+            }
+            int[] outOffsets = new int[n + 1];
+            int kept = 0;
+            for (int u = 0; u < n; u++) {
+                int start = offsets[u], end = offsets[u + 1];
+                Arrays.sort(targets, start, end);
+                outOffsets[u] = kept;
+                for (int k = start; k < end; k++) {
+                    if (k == start || targets[k] != targets[k - 1]) {
+                        targets[kept++] = targets[k];
+                    }
+                }
+            }
+            outOffsets[n] = kept;
+            int[] outTargets = Arrays.copyOf(targets, kept);
+
+            // Reverse edges from the de-duplicated forward edges
+            int[] inOffsets = new int[n + 1];
+            for (int target : outTargets) {
+                inOffsets[target + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                inOffsets[u + 1] += inOffsets[u];
+            }
+            int[] inSources = new int[kept];
+            fill = Arrays.copyOf(inOffsets, n);
+            for (int u = 0; u < n; u++) {
+                for (int k = outOffsets[u]; k < outOffsets[u + 1]; k++) {
+                    inSources[fill[outTargets[k]]++] = u;
+                }
+            }
+
+            return new UserGraph(dictionary, n, outOffsets, outTargets, inOffsets, inSources);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.toxictweet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks that look-alike spellings in tweets and in the lexicon are detected, end to end through
+ * {@link AnalysisPipeline}. Prints each failure and exits with code 1 if there is any.
+ *
+ * <pre>
+ * java -cp out:out-test com.example.toxictweet.NormalizerCheck
+ * </pre>
+ */
+public class NormalizerCheck {
+    private static final List<String> LEXICON = Arrays.asList("n00b", "stupid", "idiot", "ass", "kill");
+
+    // Tweet text and the lexicon words it must be reported with
+    private static final String[][] CASES = {
+            {"you st00pid n00b", "stupid", "n00b"},
+            {"what a noob", "n00b"},
+            {"such a 1d10t", "idiot"},
+            {"i.d.i.o.t", "idiot"},
+            {"i d i o t", "idiot"},
+            {"St\u00fcpid!", "stupid"},
+            {"what an a$$", "ass"},
+            {"ki11 it", "kill"},
+            {"st00p that", },
+            {"see you in 2024 @user wow!", },
+    };
+
+    private NormalizerCheck() {
+    }
+
+    /**
+     * @return A description of each case that was not detected as expected; empty if all passed.
+     */
+    public static List<String> run() {
+        AnalysisPipeline pipeline = new AnalysisPipeline();
+        pipeline.setToxicWords(LEXICON);
+        for (int i = 0; i < CASES.length; i++) {
+            pipeline.addTweet(Integer.toString(i), "user" + i, CASES[i][0], null);
+        }
+        pipeline.detectToxicTweets();
+
+        List<String> problems = new ArrayList<>();
+        Set<String> lexicon = new HashSet<>(TextNormalizer.normalizeWords(LEXICON));
+        for (int i = 0; i < CASES.length; i++) {
+            Set<String> expected = new HashSet<>(TextNormalizer.normalizeWords(
+                    Arrays.asList(CASES[i]).subList(1, CASES[i].length)));
+            Set<String> found = pipeline.getTweets().get(i).getToxicWords();
+            if (!expected.equals(found) || !lexicon.containsAll(found)) {
+                problems.add("\"" + CASES[i][0] + "\" (normalized \"" + TextNormalizer.normalizeToString(CASES[i][0])
+                        + "\"): expected " + expected + ", found " + found);
+            }
+        }
+        if (!pipeline.getTweets().get(CASES.length - 1).getToxicWords().equals(Collections.emptySet())) {
+            problems.add("Tokens without letters must not be folded");
+        }
+        return problems;
+    }
+
+    public static void main(String[] args) {
+        List<String> problems = run();
+        if (problems.isEmpty()) {
+            System.out.println("All " + CASES.length + " look-alike cases detected as expected.");
+            return;
+        }
+        problems.forEach(System.out::println);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.toxictweet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a {@link ScoringServer} backed by a {@link LexiconManager} stops serving cached verdicts
+ * of the old lexicon once a new one is swapped in. Prints each failure and exits with code 1 if there is any.
+ *
+ * <pre>
+ * java -cp out:out-test com.example.toxictweet.ScoringServerCheck
+ * </pre>
+ */
+public class ScoringServerCheck {
+    private static final String LINE = "1,u1,you are such a moron";
+
+    private ScoringServerCheck() {
+    }
+
+    /**
+     * @return A description of each reply that did not match; empty if all passed.
+     */
+    public static List<String> run() throws IOException {
+        List<String> problems = new ArrayList<>();
+        Path dir = Files.createTempDirectory("scoring-check");
+        Path lexiconFile = dir.resolve("lexicon.txt");
+        try {
+            Files.write(lexiconFile, Arrays.asList("idiot"), StandardCharsets.UTF_8);
+            LexiconManager lexicon = new LexiconManager(lexiconFile, "aho-corasick");
+            lexicon.reload();
+            try (ScoringServer server = new ScoringServer(lexicon, null)) {
+                server.start(0);
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+                    // Twice, so the second verdict comes from the cache
+                    expect(problems, "before the reload", score(LINE, in, out), false);
+                    expect(problems, "before the reload, cached", score(LINE, in, out), false);
+
+                    Files.write(lexiconFile, Arrays.asList("idiot", "moron"), StandardCharsets.UTF_8);
+                    if (!lexicon.reload()) {
+                        problems.add("The changed lexicon was not swapped in");
+                    }
+                    expect(problems, "after the reload", score(LINE, in, out), true);
+                    expect(problems, "a new text after the reload", score("2,u2,what a moron", in, out), true);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        return problems;
+    }
+
+    private static String score(String line, BufferedReader in, Writer out) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) {
+            throw new IOException("Server closed the connection");
+        }
+        return reply;
+    }
+
+    private static void expect(List<String> problems, String when, String reply, boolean toxic) {
+        if (!reply.contains("\"toxic\":" + toxic)) {
+            problems.add("Expected toxic=" + toxic + " " + when + ", got " + reply);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> problems = run();
+        if (problems.isEmpty()) {
+            System.out.println("Verdicts follow the lexicon across a reload.");
+            return;
+        }
+        problems.forEach(System.out::println);
+        System.exit(1);
+    }
+}